@@ -0,0 +1,141 @@
+package uk.gov.hmcts.reform.dbtool.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load against a running application, for comparing configurations
+ * such as the servlet and reactive read paths.
+ * Each client sends its next GET /api/cases/ccd/{ccd} as soon as the previous one answers, cycling through
+ * the seed cases; every client count gets a warmup, then a measured run. Requests are asynchronous,
+ * so 1,000 clients do not need 1,000 threads in the driver.
+ *
+ * Start the application with --spring.cache.type=none so every request reaches the databases, then run:
+ *
+ *   mvn -Pjmh test-compile exec:java@load -Dload.args="label=servlet clients=50,200,1000 warmup=10 duration=30"
+ *
+ * For the reactive path, start with --dbtool.r2dbc.enabled=true and add path=/api/cases/reactive/ccd/.
+ * Other arguments: url (default http://localhost:3500) and ccds (comma separated; the seed cases by default).
+ */
+public final class CaseApiLoadDriver {
+
+    private static final List<String> SEED_CCDS = List.of("1000000000000001", "1000000000000002",
+            "1000000000000003", "1000000000000004", "1000000000000005", "1000000000000006", "1000000000000007");
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final String url;
+    private final String path;
+    private final List<String> ccds;
+
+    private CaseApiLoadDriver(String url, String path, List<String> ccds) {
+        this.url = url;
+        this.path = path;
+        this.ccds = ccds;
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "");
+        }
+        String url = options.getOrDefault("url", "http://localhost:3500");
+        String path = options.getOrDefault("path", "/api/cases/ccd/");
+        List<String> ccds = options.containsKey("ccds") ? List.of(options.get("ccds").split(",")) : SEED_CCDS;
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int[] clientCounts = Arrays.stream(options.getOrDefault("clients", "50,200,1000").split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+
+        CaseApiLoadDriver driver = new CaseApiLoadDriver(url, path, ccds);
+        System.out.printf("%s against %s%s{ccd}, %d s per client count after %d s warmup%n",
+                options.getOrDefault("label", "Load"), url, path, duration, warmup);
+        System.out.printf("%8s %9s %7s %9s %8s %8s %8s %8s%n",
+                "clients", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (int clients : clientCounts) {
+            driver.run(clients, warmup);
+            System.out.println(driver.run(clients, duration).format(clients));
+        }
+    }
+
+    private Result run(int clients, int seconds) {
+        Result result = new Result(seconds);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<CompletableFuture<Void>> loops = new ArrayList<>(clients);
+        for (int client = 0; client < clients; client++) {
+            loops.add(loop(client, deadline, result));
+        }
+        CompletableFuture.allOf(loops.toArray(CompletableFuture[]::new)).join();
+        return result;
+    }
+
+    private CompletableFuture<Void> loop(int client, long deadline, Result result) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String ccd = ccds.get((int) ((client + result.requests.get()) % ccds.size()));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + path + ccd))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    result.record(System.nanoTime() - start, error == null && response.statusCode() == 200);
+                    return null;
+                })
+                .thenCompose(ignored -> loop(client, deadline, result));
+    }
+
+    private static final class Result {
+
+        private final int seconds;
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+        Result(int seconds) {
+            this.seconds = seconds;
+        }
+
+        void record(long nanos, boolean ok) {
+            requests.incrementAndGet();
+            if (ok) {
+                latencies.add(nanos);
+            } else {
+                errors.incrementAndGet();
+            }
+        }
+
+        String format(int clients) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            return String.format("%8d %9d %7d %9.1f %8.1f %8.1f %8.1f %8.1f", clients, requests.get(), errors.get(),
+                    (double) sorted.length / seconds, percentile(sorted, 0.50), percentile(sorted, 0.95),
+                    percentile(sorted, 0.99), percentile(sorted, 1.0));
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
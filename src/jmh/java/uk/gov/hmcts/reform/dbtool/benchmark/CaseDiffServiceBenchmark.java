@@ -0,0 +1,104 @@
+package uk.gov.hmcts.reform.dbtool.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import uk.gov.hmcts.reform.dbtool.database.CaseSnapshot;
+import uk.gov.hmcts.reform.dbtool.domain.Case;
+import uk.gov.hmcts.reform.dbtool.domain.CasePatchRequest;
+import uk.gov.hmcts.reform.dbtool.domain.Payment;
+import uk.gov.hmcts.reform.dbtool.domain.ServiceRequest;
+import uk.gov.hmcts.reform.dbtool.domain.SqlGenerationResult;
+import uk.gov.hmcts.reform.dbtool.mapper.CaseMapper;
+import uk.gov.hmcts.reform.dbtool.repository.*;
+import uk.gov.hmcts.reform.dbtool.service.CaseDiffService;
+import uk.gov.hmcts.reform.dbtool.service.CaseMetrics;
+import uk.gov.hmcts.reform.dbtool.service.CaseQueryExecutor;
+import uk.gov.hmcts.reform.dbtool.service.CaseRefundLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static uk.gov.hmcts.reform.dbtool.benchmark.CaseFixtures.stubRepository;
+
+/**
+ * Diff and SQL generation against in-memory repositories.
+ * DELETE_ALL generates an INSERT rollback statement per row, KEEP_ALL only matches,
+ * MOVE_ALL shifts every fee and payment to the next service request.
+ * KEEP_BY_REFERENCE keeps everything but identifies payments by reference only, exercising natural-key matching;
+ * with 1,000 and 10,000 entities it shows whether diff time grows linearly with case size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaseDiffServiceBenchmark {
+
+    public enum Scenario { DELETE_ALL, KEEP_ALL, MOVE_ALL, KEEP_BY_REFERENCE }
+
+    @Param({"1", "100", "1000", "10000"})
+    private int entityCount;
+
+    @Param({"DELETE_ALL", "KEEP_ALL", "MOVE_ALL", "KEEP_BY_REFERENCE"})
+    private Scenario scenario;
+
+    private CaseDiffService caseDiffService;
+    private CasePatchRequest patchRequest;
+
+    @Setup
+    public void setUp() {
+        CaseSnapshot snapshot = CaseFixtures.snapshot(entityCount);
+        caseDiffService = new CaseDiffService(
+                stubRepository(PaymentFeeLinkRepository.class, snapshot.links()),
+                stubRepository(FeeRepository.class, snapshot.fees()),
+                stubRepository(PaymentRepository.class, snapshot.payments()),
+                stubRepository(RemissionRepository.class, snapshot.remissions()),
+                stubRepository(RefundRepository.class, snapshot.refunds()),
+                stubRepository(ApportionmentRepository.class, snapshot.apportionments()),
+                new CaseRefundLoader(new CaseQueryExecutor(Runnable::run, new SimpleMeterRegistry())),
+                null, // the database diff needs a live database; this benchmark measures the in-memory diff
+                new CaseMetrics(new SimpleMeterRegistry()));
+
+        Case domainCase = new CaseMapper().mapToDomain(snapshot.links(), snapshot.fees(), snapshot.payments(),
+                snapshot.refunds(), snapshot.remissions(), snapshot.apportionments()).get(0);
+        patchRequest = new CasePatchRequest(CaseFixtures.CCD, switch (scenario) {
+            case DELETE_ALL -> List.of();
+            case KEEP_ALL -> domainCase.getServiceRequests();
+            case MOVE_ALL -> rotate(domainCase.getServiceRequests());
+            case KEEP_BY_REFERENCE -> withoutPaymentIds(domainCase.getServiceRequests());
+        });
+    }
+
+    @Benchmark
+    public SqlGenerationResult generateDeletionSql() {
+        return caseDiffService.generateDeletionSql(patchRequest);
+    }
+
+    private static List<ServiceRequest> withoutPaymentIds(List<ServiceRequest> serviceRequests) {
+        return serviceRequests.stream()
+                .map(sr -> new ServiceRequest(sr.id(), sr.paymentReference(), sr.ccdCaseNumber(), sr.caseReference(),
+                        sr.fees(), sr.payments().stream()
+                                .map(p -> new Payment(null, p.reference(), p.amount(), p.currency(), p.status(),
+                                        p.method(), p.provider(), p.channel(), p.externalReference(),
+                                        p.customerReference(), p.pbaNumber(), p.payerName(), p.dateCreated(),
+                                        p.dateUpdated(), p.bankedDate(), p.refunds(), p.apportionments()))
+                                .toList(),
+                        sr.dateCreated(), sr.dateUpdated(), sr.orgId(), sr.enterpriseServiceName(),
+                        sr.serviceRequestCallbackUrl()))
+                .toList();
+    }
+
+    private static List<ServiceRequest> rotate(List<ServiceRequest> serviceRequests) {
+        List<ServiceRequest> rotated = new ArrayList<>();
+        for (int i = 0; i < serviceRequests.size(); i++) {
+            ServiceRequest sr = serviceRequests.get(i);
+            ServiceRequest next = serviceRequests.get((i + 1) % serviceRequests.size());
+            rotated.add(new ServiceRequest(sr.id(), sr.paymentReference(), sr.ccdCaseNumber(), sr.caseReference(),
+                    next.fees(), next.payments(), sr.dateCreated(), sr.dateUpdated(), sr.orgId(),
+                    sr.enterpriseServiceName(), sr.serviceRequestCallbackUrl()));
+        }
+        return rotated;
+    }
+}
@@ -0,0 +1,187 @@
+package uk.gov.hmcts.reform.dbtool.benchmark;
+
+import uk.gov.hmcts.reform.dbtool.database.*;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic synthetic cases for benchmarks.
+ * Each service request has 1 link, 3 fees, 2 payments, 1 remission, 2 apportionments and 1 refund;
+ * rows are generated in that order until the requested entity count is reached.
+ */
+public final class CaseFixtures {
+
+    public static final String CCD = "1000000000000001";
+
+    private static final int ENTITIES_PER_SERVICE_REQUEST = 10;
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 15, 10, 30, 0, 123_456_000);
+
+    private CaseFixtures() {
+    }
+
+    public static CaseSnapshot snapshot(int entityCount) {
+        List<PaymentFeeLinkEntity> links = new ArrayList<>();
+        List<FeeEntity> fees = new ArrayList<>();
+        List<PaymentEntity> payments = new ArrayList<>();
+        List<RefundEntity> refunds = new ArrayList<>();
+        List<RemissionEntity> remissions = new ArrayList<>();
+        List<ApportionmentEntity> apportionments = new ArrayList<>();
+
+        for (int i = 0; i < entityCount; i++) {
+            long sr = i / ENTITIES_PER_SERVICE_REQUEST;
+            long linkId = sr + 1;
+            LocalDateTime time = BASE_TIME.plusMinutes(i);
+            switch (i % ENTITIES_PER_SERVICE_REQUEST) {
+                case 0 -> links.add(link(linkId, time));
+                case 1, 2, 3 -> fees.add(fee(sr * 3 + i % ENTITIES_PER_SERVICE_REQUEST, linkId, time));
+                case 4, 5 -> payments.add(payment(sr * 2 + i % ENTITIES_PER_SERVICE_REQUEST - 3, linkId, time));
+                case 6 -> remissions.add(remission(sr + 1, sr * 3 + 1, linkId, time));
+                case 7, 8 -> apportionments.add(
+                        apportionment(sr * 2 + i % ENTITIES_PER_SERVICE_REQUEST - 6, sr * 3 + 1, sr * 2 + 1, linkId, time));
+                default -> refunds.add(refund(sr + 1, sr * 2 + 1, time));
+            }
+        }
+        return new CaseSnapshot(links, fees, payments, refunds, remissions, apportionments);
+    }
+
+    /**
+     * A repository whose finder methods all return the given rows, for driving services without a database
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T stubRepository(Class<T> repositoryType, List<?> rows) {
+        return (T) Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "toString" -> "Stub" + repositoryType.getSimpleName();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> rows;
+                });
+    }
+
+    private static PaymentFeeLinkEntity link(long id, LocalDateTime time) {
+        PaymentFeeLinkEntity link = new PaymentFeeLinkEntity();
+        link.setId(id);
+        link.setPaymentReference("2024-" + (1_000_000_000_000L + id));
+        link.setCcdCaseNumber(CCD);
+        link.setCaseReference("REF-" + id);
+        link.setOrgId("ORG" + id % 7);
+        link.setEnterpriseServiceName("Divorce");
+        link.setServiceRequestCallbackUrl("http://callback.example/service-request/" + id);
+        link.setDateCreated(time);
+        link.setDateUpdated(time.plusSeconds(1));
+        return link;
+    }
+
+    private static FeeEntity fee(long id, long linkId, LocalDateTime time) {
+        FeeEntity fee = new FeeEntity();
+        fee.setId(id);
+        fee.setCode("FEE" + String.format("%04d", id % 1000));
+        fee.setVersion(Long.toString(1 + id % 3));
+        fee.setPaymentLinkId(linkId);
+        fee.setCalculatedAmount(amount(id));
+        fee.setVolume((int) (1 + id % 2));
+        fee.setCcdCaseNumber(CCD);
+        fee.setReference("FR-" + id);
+        fee.setNetAmount(amount(id));
+        fee.setFeeAmount(amount(id));
+        fee.setAmountDue(BigDecimal.ZERO.setScale(2));
+        fee.setDateCreated(time);
+        fee.setDateUpdated(time.plusSeconds(1));
+        return fee;
+    }
+
+    private static PaymentEntity payment(long id, long linkId, LocalDateTime time) {
+        PaymentEntity payment = new PaymentEntity();
+        payment.setId(id);
+        payment.setAmount(amount(id));
+        payment.setCaseReference("REF-" + linkId);
+        payment.setCcdCaseNumber(CCD);
+        payment.setCurrency("GBP");
+        payment.setDateCreated(time);
+        payment.setDateUpdated(time.plusSeconds(1));
+        payment.setDescription("Payment for case " + CCD);
+        payment.setServiceType("Divorce");
+        payment.setSiteId("AA07");
+        payment.setUserId("user-" + id % 11);
+        payment.setPaymentChannel("online");
+        payment.setPaymentMethod("card");
+        payment.setPaymentProvider("gov pay");
+        payment.setPaymentStatus("success");
+        payment.setPaymentLinkId(linkId);
+        payment.setCustomerReference("CUST-" + id);
+        payment.setExternalReference("ext" + id);
+        // Apostrophes exercise SQL string escaping
+        payment.setOrganisationName("O'Brien & Sons");
+        payment.setPbaNumber("PBA" + (1_000_000 + id));
+        payment.setReference("RC-" + (1_000_000_000_000L + id));
+        payment.setS2sServiceName("ccd_gw");
+        payment.setServiceCallbackUrl("http://callback.example/payment/" + id);
+        payment.setBankedDate(time.plusDays(1));
+        payment.setPayerName("Pat O'Neill");
+        return payment;
+    }
+
+    private static RemissionEntity remission(long id, long feeId, long linkId, LocalDateTime time) {
+        RemissionEntity remission = new RemissionEntity();
+        remission.setId(id);
+        remission.setFeeId(feeId);
+        remission.setHwfReference("HWF-" + id);
+        remission.setHwfAmount(new BigDecimal("25.00"));
+        remission.setBeneficiaryName("Beneficiary " + id);
+        remission.setCcdCaseNumber(CCD);
+        remission.setCaseReference("REF-" + linkId);
+        remission.setPaymentLinkId(linkId);
+        remission.setSiteId("AA07");
+        remission.setDateCreated(time);
+        remission.setDateUpdated(time.plusSeconds(1));
+        remission.setRemissionReference("RM-" + id);
+        return remission;
+    }
+
+    private static ApportionmentEntity apportionment(long id, long feeId, long paymentId, long linkId, LocalDateTime time) {
+        ApportionmentEntity apportionment = new ApportionmentEntity();
+        apportionment.setId(id);
+        apportionment.setPaymentId(paymentId);
+        apportionment.setFeeId(feeId);
+        apportionment.setPaymentLinkId(linkId);
+        apportionment.setFeeAmount(amount(feeId));
+        apportionment.setPaymentAmount(amount(paymentId));
+        apportionment.setApportionAmount(amount(feeId));
+        apportionment.setCcdCaseNumber(CCD);
+        apportionment.setApportionType("AUTO");
+        apportionment.setCallSurplusAmount(BigDecimal.ZERO.setScale(2));
+        apportionment.setCreatedBy("system");
+        apportionment.setDateCreated(time);
+        apportionment.setDateUpdated(time.plusSeconds(1));
+        return apportionment;
+    }
+
+    private static RefundEntity refund(long id, long paymentId, LocalDateTime time) {
+        RefundEntity refund = new RefundEntity();
+        refund.setId(id);
+        refund.setDateCreated(time);
+        refund.setDateUpdated(time.plusSeconds(1));
+        refund.setAmount(new BigDecimal("10.00"));
+        refund.setReason("Duplicate payment");
+        refund.setRefundStatus("Approved");
+        refund.setReference("RF-" + (1_000_000_000_000L + id));
+        refund.setPaymentReference("RC-" + (1_000_000_000_000L + paymentId));
+        refund.setCreatedBy("caseworker");
+        refund.setUpdatedBy("approver");
+        refund.setCcdCaseNumber(CCD);
+        refund.setFeeIds(Long.toString(id));
+        refund.setNotificationSentFlag("SENT");
+        refund.setContactDetails("{\"email\":\"someone@example.com\"}");
+        refund.setServiceType("Divorce");
+        refund.setRefundInstructionType("RefundWhenContacted");
+        return refund;
+    }
+
+    private static BigDecimal amount(long id) {
+        return BigDecimal.valueOf(1000 + id * 37 % 50_000, 2);
+    }
+}
@@ -0,0 +1,38 @@
+package uk.gov.hmcts.reform.dbtool.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.gov.hmcts.reform.dbtool.database.CaseSnapshot;
+import uk.gov.hmcts.reform.dbtool.domain.Case;
+import uk.gov.hmcts.reform.dbtool.mapper.CaseMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to domain mapping for a single case of increasing size
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaseMapperBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int entityCount;
+
+    private final CaseMapper caseMapper = new CaseMapper();
+    private CaseSnapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        snapshot = CaseFixtures.snapshot(entityCount);
+    }
+
+    @Benchmark
+    public List<Case> mapToDomain() {
+        return caseMapper.mapToDomain(snapshot.links(), snapshot.fees(), snapshot.payments(),
+                snapshot.refunds(), snapshot.remissions(), snapshot.apportionments());
+    }
+}
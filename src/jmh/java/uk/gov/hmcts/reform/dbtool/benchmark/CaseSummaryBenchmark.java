@@ -0,0 +1,38 @@
+package uk.gov.hmcts.reform.dbtool.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.gov.hmcts.reform.dbtool.database.CaseSnapshot;
+import uk.gov.hmcts.reform.dbtool.domain.Case;
+import uk.gov.hmcts.reform.dbtool.domain.CaseSummary;
+import uk.gov.hmcts.reform.dbtool.mapper.CaseMapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summary totals over an already mapped case
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaseSummaryBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int entityCount;
+
+    private Case domainCase;
+
+    @Setup
+    public void setUp() {
+        CaseSnapshot snapshot = CaseFixtures.snapshot(entityCount);
+        domainCase = new CaseMapper().mapToDomain(snapshot.links(), snapshot.fees(), snapshot.payments(),
+                snapshot.refunds(), snapshot.remissions(), snapshot.apportionments()).get(0);
+    }
+
+    @Benchmark
+    public CaseSummary getSummary() {
+        return domainCase.getSummary();
+    }
+}
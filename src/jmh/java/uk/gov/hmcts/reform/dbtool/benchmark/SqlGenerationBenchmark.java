@@ -0,0 +1,89 @@
+package uk.gov.hmcts.reform.dbtool.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.gov.hmcts.reform.dbtool.database.*;
+import uk.gov.hmcts.reform.dbtool.sql.CaseSqlTemplates;
+import uk.gov.hmcts.reform.dbtool.sql.LegacySqlFormat;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rollback INSERT and DELETE generation for every row of a case:
+ * the original String.format statements against the pre-compiled templates
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlGenerationBenchmark {
+
+    @Param({"100", "10000"})
+    private int entityCount;
+
+    private CaseSnapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        snapshot = CaseFixtures.snapshot(entityCount);
+    }
+
+    @Benchmark
+    public void stringFormat(Blackhole blackhole) {
+        for (PaymentFeeLinkEntity link : snapshot.links()) {
+            blackhole.consume(LegacySqlFormat.generateDeleteSql("payment_fee_link", "id", link.getId()));
+            blackhole.consume(LegacySqlFormat.generateInsertSql(link));
+        }
+        for (FeeEntity fee : snapshot.fees()) {
+            blackhole.consume(LegacySqlFormat.generateDeleteSql("fee", "id", fee.getId()));
+            blackhole.consume(LegacySqlFormat.generateInsertSql(fee));
+        }
+        for (PaymentEntity payment : snapshot.payments()) {
+            blackhole.consume(LegacySqlFormat.generateDeleteSql("payment", "id", payment.getId()));
+            blackhole.consume(LegacySqlFormat.generateInsertSql(payment));
+        }
+        for (RemissionEntity remission : snapshot.remissions()) {
+            blackhole.consume(LegacySqlFormat.generateDeleteSql("remission", "id", remission.getId()));
+            blackhole.consume(LegacySqlFormat.generateInsertSql(remission));
+        }
+        for (ApportionmentEntity apportionment : snapshot.apportionments()) {
+            blackhole.consume(LegacySqlFormat.generateDeleteSql("fee_pay_apportion", "id", apportionment.getId()));
+            blackhole.consume(LegacySqlFormat.generateInsertSql(apportionment));
+        }
+        for (RefundEntity refund : snapshot.refunds()) {
+            blackhole.consume(LegacySqlFormat.generateDeleteSql("refunds", "id", refund.getId()));
+            blackhole.consume(LegacySqlFormat.generateInsertSql(refund));
+        }
+    }
+
+    @Benchmark
+    public void templates(Blackhole blackhole) {
+        StringBuilder sql = new StringBuilder(512);
+        for (PaymentFeeLinkEntity link : snapshot.links()) {
+            blackhole.consume(CaseSqlTemplates.delete(sql, "payment_fee_link", "id", link.getId()));
+            blackhole.consume(CaseSqlTemplates.PAYMENT_FEE_LINK_INSERT.render(sql, link));
+        }
+        for (FeeEntity fee : snapshot.fees()) {
+            blackhole.consume(CaseSqlTemplates.delete(sql, "fee", "id", fee.getId()));
+            blackhole.consume(CaseSqlTemplates.FEE_INSERT.render(sql, fee));
+        }
+        for (PaymentEntity payment : snapshot.payments()) {
+            blackhole.consume(CaseSqlTemplates.delete(sql, "payment", "id", payment.getId()));
+            blackhole.consume(CaseSqlTemplates.PAYMENT_INSERT.render(sql, payment));
+        }
+        for (RemissionEntity remission : snapshot.remissions()) {
+            blackhole.consume(CaseSqlTemplates.delete(sql, "remission", "id", remission.getId()));
+            blackhole.consume(CaseSqlTemplates.REMISSION_INSERT.render(sql, remission));
+        }
+        for (ApportionmentEntity apportionment : snapshot.apportionments()) {
+            blackhole.consume(CaseSqlTemplates.delete(sql, "fee_pay_apportion", "id", apportionment.getId()));
+            blackhole.consume(CaseSqlTemplates.APPORTIONMENT_INSERT.render(sql, apportionment));
+        }
+        for (RefundEntity refund : snapshot.refunds()) {
+            blackhole.consume(CaseSqlTemplates.delete(sql, "refunds", "id", refund.getId()));
+            blackhole.consume(CaseSqlTemplates.REFUND_INSERT.render(sql, refund));
+        }
+    }
+}
@@ -2,8 +2,10 @@ package uk.gov.hmcts.reform.dbtool;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
-@SpringBootApplication
+// Each database gets its own R2DBC pool in R2dbcConfig when the reactive read path is enabled
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class DbToolApplication {
 
     public static void main(String[] args) {
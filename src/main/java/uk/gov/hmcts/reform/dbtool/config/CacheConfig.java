@@ -0,0 +1,12 @@
+package uk.gov.hmcts.reform.dbtool.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the case cache. The cache manager itself is configured through spring.cache properties.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
@@ -0,0 +1,32 @@
+package uk.gov.hmcts.reform.dbtool.config;
+
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.gov.hmcts.reform.dbtool.repository.RefundRepository;
+
+/**
+ * Configuration for the metrics that tell the two databases apart.
+ * Spring Data repository timers (spring.data.repository.invocations) get a database tag;
+ * the Hikari pools are told apart by their pool-name in application.yml.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public RepositoryTagsProvider repositoryTagsProvider() {
+        DefaultRepositoryTagsProvider defaultTags = new DefaultRepositoryTagsProvider();
+        return invocation -> Tags.of(defaultTags.repositoryTags(invocation))
+                .and("database", database(invocation.getRepositoryInterface()));
+    }
+
+    /**
+     * The database a Spring Data repository reads, matching the split in PaymentDataSourceConfig
+     * and RefundDataSourceConfig
+     */
+    static String database(Class<?> repositoryInterface) {
+        return repositoryInterface == RefundRepository.class ? "refunds" : "payments";
+    }
+}
@@ -0,0 +1,32 @@
+package uk.gov.hmcts.reform.dbtool.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Configuration for the executor used to fan out case queries.
+ * Concurrency is capped at the payment pool size so the fan-out never queues on Hikari.
+ */
+@Configuration
+public class QueryExecutorConfig {
+
+    @Bean(name = "caseQueryThreadPool")
+    public ThreadPoolTaskExecutor caseQueryThreadPool(
+            @Value("${dbtool.query.max-concurrency:${spring.datasource.payment.hikari.maximum-pool-size:10}}")
+            int maxConcurrency,
+            @Value("${dbtool.query.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrency);
+        executor.setMaxPoolSize(maxConcurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("case-query-");
+        // Run on the request thread rather than fail when the queue is full
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
@@ -0,0 +1,84 @@
+package uk.gov.hmcts.reform.dbtool.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Configuration for the reactive read path: an R2DBC connection pool and client per database,
+ * alongside the Hikari pools, which every other endpoint keeps using.
+ * Only created with dbtool.r2dbc.enabled; R2dbcAutoConfiguration is excluded since there are two databases.
+ */
+@Configuration
+@ConditionalOnProperty(name = "dbtool.r2dbc.enabled", havingValue = "true")
+public class R2dbcConfig {
+
+    @Bean(name = "paymentR2dbcProperties")
+    @ConfigurationProperties("spring.r2dbc.payment")
+    public R2dbcProperties paymentR2dbcProperties() {
+        return new R2dbcProperties();
+    }
+
+    @Bean(name = "paymentConnectionFactory", destroyMethod = "dispose")
+    public ConnectionPool paymentConnectionFactory(
+            @Qualifier("paymentR2dbcProperties") R2dbcProperties properties) {
+        return connectionPool("payments", properties);
+    }
+
+    @Bean(name = "paymentDatabaseClient")
+    public DatabaseClient paymentDatabaseClient(
+            @Qualifier("paymentConnectionFactory") ConnectionPool connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    @Bean(name = "refundsR2dbcProperties")
+    @ConfigurationProperties("spring.r2dbc.refunds")
+    public R2dbcProperties refundsR2dbcProperties() {
+        return new R2dbcProperties();
+    }
+
+    @Bean(name = "refundsConnectionFactory", destroyMethod = "dispose")
+    public ConnectionPool refundsConnectionFactory(
+            @Qualifier("refundsR2dbcProperties") R2dbcProperties properties) {
+        return connectionPool("refunds", properties);
+    }
+
+    @Bean(name = "refundsDatabaseClient")
+    public DatabaseClient refundsDatabaseClient(
+            @Qualifier("refundsConnectionFactory") ConnectionPool connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    /**
+     * A pool named like the Hikari pool for the same database; its r2dbc.pool.* metrics are tagged with the bean name
+     */
+    private static ConnectionPool connectionPool(String name, R2dbcProperties properties) {
+        R2dbcProperties.Pool pool = properties.getPool();
+        ConnectionPoolConfiguration.Builder configuration = ConnectionPoolConfiguration.builder(
+                        ConnectionFactoryBuilder.withUrl(properties.getUrl())
+                                .username(properties.getUsername())
+                                .password(properties.getPassword())
+                                .build())
+                .name(name)
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .minIdle(pool.getMinIdle())
+                .validationDepth(pool.getValidationDepth());
+        // Unset durations keep the pool's own defaults
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        map.from(pool.getMaxIdleTime()).to(configuration::maxIdleTime);
+        map.from(pool.getMaxLifeTime()).to(configuration::maxLifeTime);
+        map.from(pool.getMaxAcquireTime()).to(configuration::maxAcquireTime);
+        map.from(pool.getMaxCreateConnectionTime()).to(configuration::maxCreateConnectionTime);
+        map.from(pool.getValidationQuery()).whenHasText().to(configuration::validationQuery);
+        return new ConnectionPool(configuration.build());
+    }
+}
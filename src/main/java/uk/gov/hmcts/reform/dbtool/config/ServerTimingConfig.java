@@ -0,0 +1,66 @@
+package uk.gov.hmcts.reform.dbtool.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import uk.gov.hmcts.reform.dbtool.timing.RequestTimings;
+import uk.gov.hmcts.reform.dbtool.timing.ServerTimingFilter;
+import uk.gov.hmcts.reform.dbtool.timing.ServerTimingJsonConverter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for the Server-Timing header on the case API.
+ * Queries fanned out on the case query executor are timed there; Spring Data repository calls made
+ * on the request thread are timed by a repository invocation listener, like the repository metrics.
+ */
+@Configuration
+public class ServerTimingConfig implements WebMvcConfigurer {
+
+    @Value("${dbtool.timing.serialize-buffer-limit:256KB}")
+    private DataSize serializeBufferLimit = DataSize.ofKilobytes(256);
+
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(
+            @Value("${dbtool.timing.slow-request-threshold:1s}") Duration slowRequestThreshold) {
+        FilterRegistrationBean<ServerTimingFilter> registration =
+                new FilterRegistrationBean<>(new ServerTimingFilter(slowRequestThreshold));
+        registration.addUrlPatterns("/api/cases/*");
+        return registration;
+    }
+
+    @Bean
+    public static BeanPostProcessor repositoryTimingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addInvocationListener(
+                            invocation -> RequestTimings.recordCurrent(
+                                    RequestTimings.Phase.database(MetricsConfig.database(invocation.getRepositoryInterface())),
+                                    invocation.getDuration(TimeUnit.NANOSECONDS))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Time JSON serialization of timed requests, buffering bodies up to the limit
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.replaceAll(converter -> converter instanceof MappingJackson2HttpMessageConverter jackson ?
+                new ServerTimingJsonConverter(jackson.getObjectMapper(),
+                        (int) serializeBufferLimit.toBytes()) : converter);
+    }
+}
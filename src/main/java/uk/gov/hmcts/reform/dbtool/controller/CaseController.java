@@ -2,18 +2,48 @@ package uk.gov.hmcts.reform.dbtool.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import uk.gov.hmcts.reform.dbtool.domain.Case;
+import uk.gov.hmcts.reform.dbtool.domain.CaseBatchRequest;
+import uk.gov.hmcts.reform.dbtool.domain.CaseBatchResult;
+import uk.gov.hmcts.reform.dbtool.domain.CaseExecutionResult;
 import uk.gov.hmcts.reform.dbtool.domain.CasePatchRequest;
 import uk.gov.hmcts.reform.dbtool.domain.CaseSummary;
+import uk.gov.hmcts.reform.dbtool.domain.CaseVersion;
 import uk.gov.hmcts.reform.dbtool.domain.SqlGenerationResult;
+import uk.gov.hmcts.reform.dbtool.service.CaseChangePlan;
 import uk.gov.hmcts.reform.dbtool.service.CaseDiffService;
+import uk.gov.hmcts.reform.dbtool.service.CaseDiffStrategy;
+import uk.gov.hmcts.reform.dbtool.service.CaseExecutionService;
+import uk.gov.hmcts.reform.dbtool.service.CaseExportCriteria;
+import uk.gov.hmcts.reform.dbtool.service.CaseExportService;
+import uk.gov.hmcts.reform.dbtool.service.CaseInclude;
+import uk.gov.hmcts.reform.dbtool.service.CaseLoadStrategy;
 import uk.gov.hmcts.reform.dbtool.service.CaseQueryService;
+import uk.gov.hmcts.reform.dbtool.service.SqlOutputMode;
+import uk.gov.hmcts.reform.dbtool.service.SqlScript;
+import uk.gov.hmcts.reform.dbtool.timing.RequestTimings;
 
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * REST API for querying case data
@@ -26,18 +56,43 @@ public class CaseController {
 
     private final CaseQueryService caseQueryService;
     private final CaseDiffService caseDiffService;
+    private final CaseExportService caseExportService;
+    private final CaseExecutionService caseExecutionService;
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private static final String SQL = "application/sql";
 
     /**
      * GET /api/cases/ccd/{ccdCaseNumber}
-     * Query case by CCD case number
+     * Query case by CCD case number.
+     * The optional loader parameter (jpa or json) overrides the configured load strategy.
+     * The optional include parameter lists the entity sets to load; service requests are always returned.
+     * The summary of a partial case only covers the entity sets that were loaded.
+     *
+     * Responses carry an ETag read from aggregate queries before the case is loaded;
+     * a matching If-None-Match returns 304 without loading, mapping or serializing the case.
      */
     @GetMapping("/ccd/{ccdCaseNumber}")
     public ResponseEntity<Map<String, Object>> getCaseByCcd(
-            @PathVariable String ccdCaseNumber) {
+            @PathVariable String ccdCaseNumber,
+            @RequestParam(required = false) CaseLoadStrategy loader,
+            @RequestParam(name = "include", required = false) Set<CaseInclude> requestedInclude,
+            WebRequest webRequest) {
 
         log.info("GET /api/cases/ccd/{}", ccdCaseNumber);
 
-        List<Case> cases = caseQueryService.queryCaseByCcd(ccdCaseNumber);
+        Set<CaseInclude> include = CaseInclude.resolve(requestedInclude);
+        Optional<CaseVersion> version = caseQueryService.findCaseVersion(ccdCaseNumber, include);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = version.get().etag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        List<Case> cases = caseQueryService.queryCaseByCcd(ccdCaseNumber, loader, version.get(), include);
 
         if (cases.isEmpty()) {
             return ResponseEntity.notFound().build();
@@ -47,19 +102,23 @@ public class CaseController {
         if (cases.size() == 1) {
             Case singleCase = cases.get(0);
             response.put("case", singleCase);
-            response.put("summary", singleCase.getSummary());
+            response.put("summary", RequestTimings.time(RequestTimings.Phase.SUMMARY, singleCase::getSummary));
         } else {
             response.put("cases", cases);
-            CaseSummary combinedSummary = calculateCombinedSummary(cases);
+            CaseSummary combinedSummary = RequestTimings.time(RequestTimings.Phase.SUMMARY,
+                    () -> calculateCombinedSummary(cases));
             response.put("summary", combinedSummary);
         }
+        if (!include.equals(CaseInclude.ALL)) {
+            response.put("include", include);
+        }
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(etag).body(response);
     }
 
     /**
      * GET /api/cases/ccd/{ccdCaseNumber}/summary
-     * Get summary only for a case
+     * Get summary only for a case, computed with SQL aggregates instead of loading the case
      */
     @GetMapping("/ccd/{ccdCaseNumber}/summary")
     public ResponseEntity<CaseSummary> getCaseSummary(
@@ -67,16 +126,49 @@ public class CaseController {
 
         log.info("GET /api/cases/ccd/{}/summary", ccdCaseNumber);
 
-        List<Case> cases = caseQueryService.queryCaseByCcd(ccdCaseNumber);
+        return ResponseEntity.of(caseQueryService.summarizeCase(ccdCaseNumber));
+    }
 
-        if (cases.isEmpty()) {
-            return ResponseEntity.notFound().build();
+    /**
+     * POST /api/cases/batch
+     * Query many cases by CCD case number in one call.
+     * Cases are returned in request order; CCD numbers with no data are listed under notFound.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<CaseBatchResult> getCasesByCcds(@RequestBody CaseBatchRequest batchRequest) {
+
+        log.info("POST /api/cases/batch ({} CCDs)", batchRequest.ccdCaseNumbers().size());
+
+        if (batchRequest.ccdCaseNumbers().isEmpty()) {
+            return ResponseEntity.badRequest().build();
         }
 
-        CaseSummary summary = cases.size() == 1 ?
-                cases.get(0).getSummary() : calculateCombinedSummary(cases);
+        return ResponseEntity.ok(caseQueryService.queryCasesByCcds(batchRequest.ccdCaseNumbers()));
+    }
 
-        return ResponseEntity.ok(summary);
+    /**
+     * GET /api/cases/export
+     * Stream every case in a CCD range and/or service request creation window as NDJSON,
+     * one case per line. At least one bound is required.
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportCases(
+            @RequestParam(required = false) String fromCcd,
+            @RequestParam(required = false) String toCcd,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo) {
+
+        CaseExportCriteria criteria = new CaseExportCriteria(fromCcd, toCcd, createdFrom, createdTo);
+        log.info("GET /api/cases/export {}", criteria);
+
+        if (!criteria.isBounded()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> caseExportService.exportNdjson(criteria, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
     }
 
     /**
@@ -88,10 +180,14 @@ public class CaseController {
      * Any entities present in the database but absent from the request will be marked for deletion.
      *
      * Returns SQL statements (not executed) that can be run later to make the changes.
+     * Optional mode=set-based groups the statements per table and target service request.
+     * Optional diff=database compares in the database and loads only the rows to delete.
      */
     @PatchMapping("/ccd/{ccdCaseNumber}")
     public ResponseEntity<SqlGenerationResult> patchCase(
             @PathVariable String ccdCaseNumber,
+            @RequestParam(required = false) SqlOutputMode mode,
+            @RequestParam(required = false) CaseDiffStrategy diff,
             @RequestBody CasePatchRequest patchRequest) {
 
         log.info("PATCH /api/cases/ccd/{}", ccdCaseNumber);
@@ -102,14 +198,87 @@ public class CaseController {
             return ResponseEntity.badRequest().build();
         }
 
-        // Check if case exists
-        List<Case> existingCases = caseQueryService.queryCaseByCcd(ccdCaseNumber);
-        if (existingCases.isEmpty()) {
+        // The case is read once: the same read tells whether it exists and feeds the diff
+        return ResponseEntity.of(caseDiffService.generateDeletionSql(patchRequest,
+                mode != null ? mode : SqlOutputMode.PER_ROW, diff));
+    }
+
+    /**
+     * PATCH /api/cases/ccd/{ccdCaseNumber} with Accept: application/sql or text/plain
+     * Stream one script as a downloadable file, statement by statement as it is rendered,
+     * ending with a comment that carries the change summary.
+     * Optional script=refunds, payments-rollback or refunds-rollback picks the script; payments by default.
+     * The response is gzipped when the client sends Accept-Encoding: gzip.
+     */
+    @PatchMapping(value = "/ccd/{ccdCaseNumber}", produces = {SQL, MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<StreamingResponseBody> patchCaseScript(
+            @PathVariable String ccdCaseNumber,
+            @RequestParam(required = false) SqlOutputMode mode,
+            @RequestParam(required = false) CaseDiffStrategy diff,
+            @RequestParam(required = false) SqlScript script,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestBody CasePatchRequest patchRequest) {
+
+        log.info("PATCH /api/cases/ccd/{} as a script", ccdCaseNumber);
+
+        if (patchRequest.ccdCaseNumber() == null || !patchRequest.ccdCaseNumber().equals(ccdCaseNumber)) {
+            log.warn("CCD case number mismatch: path={}, body={}", ccdCaseNumber, patchRequest.ccdCaseNumber());
+            return ResponseEntity.badRequest().build();
+        }
+
+        SqlScript selected = script != null ? script : SqlScript.PAYMENTS;
+        Optional<CaseChangePlan> plan = caseDiffService.planScript(patchRequest, diff, selected);
+        if (plan.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        SqlGenerationResult result = caseDiffService.generateDeletionSql(patchRequest);
-        return ResponseEntity.ok(result);
+        SqlOutputMode outputMode = mode != null ? mode : SqlOutputMode.PER_ROW;
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8));
+            caseDiffService.writeScript(plan.get(), outputMode, selected, writer);
+            writer.flush();
+            if (gzip) {
+                ((GZIPOutputStream) target).finish();
+            }
+        };
+
+        String fileName = ccdCaseNumber + "-" + selected.name().toLowerCase().replace('_', '-') + ".sql";
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(accept != null && accept.contains(SQL) ?
+                        MediaType.parseMediaType(SQL) : MediaType.TEXT_PLAIN)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * POST /api/cases/ccd/{ccdCaseNumber}/execute
+     * Apply the changes the PATCH endpoint would generate, in one transaction per database.
+     * A failure on either database rolls back both; a row that changed since it was read returns 409.
+     * Returns the change summary, per-batch timings and the rollback SQL.
+     * Optional diff=database plans the changes in the database, as for PATCH.
+     */
+    @PostMapping("/ccd/{ccdCaseNumber}/execute")
+    public ResponseEntity<CaseExecutionResult> executeCase(
+            @PathVariable String ccdCaseNumber,
+            @RequestParam(required = false) CaseDiffStrategy diff,
+            @RequestBody CasePatchRequest patchRequest) {
+
+        log.info("POST /api/cases/ccd/{}/execute", ccdCaseNumber);
+
+        if (patchRequest.ccdCaseNumber() == null || !patchRequest.ccdCaseNumber().equals(ccdCaseNumber)) {
+            log.warn("CCD case number mismatch: path={}, body={}", ccdCaseNumber, patchRequest.ccdCaseNumber());
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.of(caseExecutionService.execute(patchRequest, diff));
     }
 
     private CaseSummary calculateCombinedSummary(List<Case> cases) {
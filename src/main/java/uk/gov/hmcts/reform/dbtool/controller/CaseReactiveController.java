@@ -0,0 +1,58 @@
+package uk.gov.hmcts.reform.dbtool.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import uk.gov.hmcts.reform.dbtool.domain.Case;
+import uk.gov.hmcts.reform.dbtool.service.CaseReactiveQueryService;
+import uk.gov.hmcts.reform.dbtool.timing.RequestTimings;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Non-blocking reads of case data over R2DBC, enabled with dbtool.r2dbc.enabled.
+ * Handlers return a Mono, so the request thread is released while the queries run
+ * and the response is written on an async dispatch once the case has been mapped.
+ */
+@RestController
+@RequestMapping("/api/cases/reactive")
+@ConditionalOnProperty(name = "dbtool.r2dbc.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class CaseReactiveController {
+
+    private final CaseReactiveQueryService caseReactiveQueryService;
+
+    /**
+     * GET /api/cases/reactive/ccd/{ccdCaseNumber}
+     * Query case by CCD case number; the same body as GET /api/cases/ccd/{ccdCaseNumber} for the whole case,
+     * without its ETag.
+     */
+    @GetMapping("/ccd/{ccdCaseNumber}")
+    public Mono<ResponseEntity<Map<String, Object>>> getCaseByCcd(@PathVariable String ccdCaseNumber) {
+
+        log.info("GET /api/cases/reactive/ccd/{}", ccdCaseNumber);
+
+        RequestTimings timings = RequestTimings.current();
+        return caseReactiveQueryService.queryCaseByCcd(ccdCaseNumber)
+                .map(cases -> {
+                    // One CCD case number is one case
+                    if (cases.isEmpty()) {
+                        return ResponseEntity.notFound().build();
+                    }
+                    Case singleCase = cases.get(0);
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("case", singleCase);
+                    response.put("summary", RequestTimings.timeQuery(timings, RequestTimings.Phase.SUMMARY,
+                            singleCase::getSummary));
+                    return ResponseEntity.ok(response);
+                });
+    }
+}
@@ -0,0 +1,35 @@
+package uk.gov.hmcts.reform.dbtool.database;
+
+import java.util.List;
+
+/**
+ * DATABASE MODEL - all rows held for one or more CCD case numbers across both databases
+ */
+public record CaseSnapshot(
+    List<PaymentFeeLinkEntity> links,
+    List<FeeEntity> fees,
+    List<PaymentEntity> payments,
+    List<RefundEntity> refunds,
+    List<RemissionEntity> remissions,
+    List<ApportionmentEntity> apportionments
+) {
+    public CaseSnapshot {
+        links = links == null ? List.of() : links;
+        fees = fees == null ? List.of() : fees;
+        payments = payments == null ? List.of() : payments;
+        refunds = refunds == null ? List.of() : refunds;
+        remissions = remissions == null ? List.of() : remissions;
+        apportionments = apportionments == null ? List.of() : apportionments;
+    }
+
+    public CaseSnapshot withRefunds(List<RefundEntity> refunds) {
+        return new CaseSnapshot(links, fees, payments, refunds, remissions, apportionments);
+    }
+
+    /**
+     * A case exists only if it has at least one service request (payment_fee_link)
+     */
+    public boolean isEmpty() {
+        return links.isEmpty();
+    }
+}
@@ -0,0 +1,19 @@
+package uk.gov.hmcts.reform.dbtool.domain;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Request DTO for the batch lookup endpoint.
+ * Null and blank CCD numbers are dropped, so a batch with nothing else in it is empty.
+ */
+public record CaseBatchRequest(
+    List<String> ccdCaseNumbers
+) {
+    public CaseBatchRequest {
+        ccdCaseNumbers = ccdCaseNumbers == null ? List.of() : ccdCaseNumbers.stream()
+            .filter(Objects::nonNull)
+            .filter(ccd -> !ccd.isBlank())
+            .toList();
+    }
+}
@@ -0,0 +1,16 @@
+package uk.gov.hmcts.reform.dbtool.domain;
+
+import java.util.List;
+
+/**
+ * Result of a batch lookup: the cases found, in request order, and the CCD numbers with no data
+ */
+public record CaseBatchResult(
+    List<Case> cases,
+    List<String> notFound
+) {
+    public CaseBatchResult {
+        cases = cases == null ? List.of() : List.copyOf(cases);
+        notFound = notFound == null ? List.of() : List.copyOf(notFound);
+    }
+}
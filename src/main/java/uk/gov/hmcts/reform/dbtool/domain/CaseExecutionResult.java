@@ -0,0 +1,36 @@
+package uk.gov.hmcts.reform.dbtool.domain;
+
+import java.util.List;
+
+/**
+ * Result of applying a PATCH request's changes to both databases.
+ * Carries the rollback SQL that restores the deleted and moved rows, built from the rows the deletes returned,
+ * and the files it was written to.
+ */
+public record CaseExecutionResult(
+    SqlGenerationResult.ChangeSummary summary,
+    List<BatchTiming> batches,
+    long totalMillis,
+    List<String> paymentDatabaseRollbackSql,
+    List<String> refundsDatabaseRollbackSql,
+    List<String> rollbackFiles
+) {
+    public CaseExecutionResult {
+        batches = batches == null ? List.of() : List.copyOf(batches);
+        paymentDatabaseRollbackSql = paymentDatabaseRollbackSql == null ? List.of() : List.copyOf(paymentDatabaseRollbackSql);
+        refundsDatabaseRollbackSql = refundsDatabaseRollbackSql == null ? List.of() : List.copyOf(refundsDatabaseRollbackSql);
+        rollbackFiles = rollbackFiles == null ? List.of() : List.copyOf(rollbackFiles);
+    }
+
+    /**
+     * One JDBC batch: a parameterised statement run once per row, or once per chunk of ids for deletes
+     */
+    public record BatchTiming(
+        String database,
+        String table,
+        String operation,
+        int rows,
+        long millis
+    ) {
+    }
+}
@@ -0,0 +1,20 @@
+package uk.gov.hmcts.reform.dbtool.domain;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Validator for the stored state of a case, used as its HTTP entity tag.
+ * Built from per-table row counts, latest date_updated and payment_link_id checksums,
+ * so inserts, deletes, updates that touch date_updated and moves between service requests all change it.
+ */
+public record CaseVersion(String fingerprint) {
+
+    /**
+     * Weak entity tag: the version identifies the case data, not the exact response bytes
+     */
+    public String etag() {
+        return "W/\"" + DigestUtils.md5DigestAsHex(fingerprint.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
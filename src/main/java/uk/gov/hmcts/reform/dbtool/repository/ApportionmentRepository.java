@@ -4,6 +4,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import uk.gov.hmcts.reform.dbtool.database.ApportionmentEntity;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,4 +12,5 @@ public interface ApportionmentRepository extends JpaRepository<ApportionmentEnti
     List<ApportionmentEntity> findByPaymentId(Long paymentId);
     List<ApportionmentEntity> findByPaymentIdIn(List<Long> paymentIds);
     List<ApportionmentEntity> findByCcdCaseNumber(String ccdCaseNumber);
+    List<ApportionmentEntity> findByCcdCaseNumberIn(Collection<String> ccdCaseNumbers);
 }
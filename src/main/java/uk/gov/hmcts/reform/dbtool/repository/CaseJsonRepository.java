@@ -0,0 +1,88 @@
+package uk.gov.hmcts.reform.dbtool.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import uk.gov.hmcts.reform.dbtool.database.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads every payments-database row for a CCD in a single round-trip.
+ * Each table is aggregated to a JSON array in the database and hydrated into unmanaged entities.
+ */
+@Repository
+public class CaseJsonRepository {
+
+    static final String CASE_JSON_SQL = """
+            WITH links AS (SELECT * FROM payment_fee_link WHERE ccd_case_number = ?),
+                 fees AS (SELECT * FROM fee WHERE ccd_case_number = ?),
+                 payments AS (SELECT * FROM payment WHERE ccd_case_number = ?),
+                 remissions AS (SELECT * FROM remission WHERE ccd_case_number = ?),
+                 apportionments AS (SELECT * FROM fee_pay_apportion WHERE ccd_case_number = ?)
+            SELECT 'payment_fee_link' AS source, COALESCE(json_agg(l), '[]'::json)::text AS rows FROM links l
+            UNION ALL
+            SELECT 'fee', COALESCE(json_agg(f), '[]'::json)::text FROM fees f
+            UNION ALL
+            SELECT 'payment', COALESCE(json_agg(p), '[]'::json)::text FROM payments p
+            UNION ALL
+            SELECT 'remission', COALESCE(json_agg(r), '[]'::json)::text FROM remissions r
+            UNION ALL
+            SELECT 'fee_pay_apportion', COALESCE(json_agg(a), '[]'::json)::text FROM apportionments a
+            """;
+
+    private final JdbcTemplate paymentJdbcTemplate;
+    private final ObjectMapper rowMapper;
+
+    public CaseJsonRepository(@Qualifier("paymentJdbcTemplate") JdbcTemplate paymentJdbcTemplate,
+                              ObjectMapper objectMapper) {
+        this.paymentJdbcTemplate = paymentJdbcTemplate;
+        this.rowMapper = objectMapper.copy()
+                .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * Load links, fees, payments, remissions and apportionments for a CCD.
+     * Refunds live in the other database and are left empty.
+     */
+    public CaseSnapshot findByCcdCaseNumber(String ccdCaseNumber) {
+        Map<String, String> rowsBySource = new HashMap<>();
+        paymentJdbcTemplate.query(CASE_JSON_SQL,
+                rs -> {
+                    rowsBySource.put(rs.getString("source"), rs.getString("rows"));
+                },
+                ccdCaseNumber, ccdCaseNumber, ccdCaseNumber, ccdCaseNumber, ccdCaseNumber);
+        return hydrate(rowsBySource);
+    }
+
+    CaseSnapshot hydrate(Map<String, String> rowsBySource) {
+        return new CaseSnapshot(
+                read(rowsBySource.get("payment_fee_link"), PaymentFeeLinkEntity.class),
+                read(rowsBySource.get("fee"), FeeEntity.class),
+                read(rowsBySource.get("payment"), PaymentEntity.class),
+                List.of(),
+                read(rowsBySource.get("remission"), RemissionEntity.class),
+                read(rowsBySource.get("fee_pay_apportion"), ApportionmentEntity.class)
+        );
+    }
+
+    private <T> List<T> read(String json, Class<T> entityType) {
+        if (json == null) {
+            return List.of();
+        }
+        JavaType listType = rowMapper.getTypeFactory().constructCollectionType(List.class, entityType);
+        try {
+            return rowMapper.readValue(json, listType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to read " + entityType.getSimpleName() + " rows", e);
+        }
+    }
+}
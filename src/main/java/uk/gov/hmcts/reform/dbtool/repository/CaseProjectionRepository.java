@@ -0,0 +1,209 @@
+package uk.gov.hmcts.reform.dbtool.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import uk.gov.hmcts.reform.dbtool.database.*;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only loader for building the case view.
+ * Selects only the columns {@link uk.gov.hmcts.reform.dbtool.mapper.CaseMapper} reads and maps them
+ * into unmanaged entities with plain row mappers, bypassing the persistence context.
+ * Unselected columns are left null, so these entities must not be used for diffs or writes.
+ */
+@Repository
+public class CaseProjectionRepository {
+
+    static final String LINKS_SQL = """
+            SELECT id, payment_reference, ccd_case_number, case_reference, org_id, enterprise_service_name,
+                   service_request_callback_url, date_created, date_updated
+            FROM payment_fee_link WHERE ccd_case_number IN (:ccds)""";
+
+    static final String FEES_SQL = """
+            SELECT id, code, version, payment_link_id, fee_amount, calculated_amount, net_amount, amount_due,
+                   volume, reference, date_created, date_updated
+            FROM fee WHERE ccd_case_number IN (:ccds)""";
+
+    static final String PAYMENTS_SQL = """
+            SELECT id, reference, payment_link_id, amount, currency, payment_status, payment_method,
+                   payment_provider, payment_channel, external_reference, customer_reference, pba_number,
+                   payer_name, date_created, date_updated, banked_date
+            FROM payment WHERE ccd_case_number IN (:ccds)""";
+
+    static final String REMISSIONS_SQL = """
+            SELECT id, fee_id, hwf_reference, hwf_amount, beneficiary_name, date_created, date_updated
+            FROM remission WHERE ccd_case_number IN (:ccds)""";
+
+    static final String APPORTIONMENTS_SQL = """
+            SELECT id, payment_id, fee_id, apportion_amount, apportion_type, call_surplus_amount,
+                   date_created, date_updated
+            FROM fee_pay_apportion WHERE ccd_case_number IN (:ccds)""";
+
+    static final String REFUNDS_SQL = """
+            SELECT id, reference, payment_reference, amount, reason, refund_status, refund_instruction_type,
+                   created_by, updated_by, date_created, date_updated
+            FROM refunds WHERE payment_reference IN (:refs)""";
+
+    static final String REFUNDS_BY_CCD_SQL = """
+            SELECT id, reference, payment_reference, amount, reason, refund_status, refund_instruction_type,
+                   created_by, updated_by, date_created, date_updated
+            FROM refunds WHERE ccd_case_number IN (:ccds)""";
+
+    static final String ORPHAN_REFUNDS_SQL = """
+            SELECT id, reference, payment_reference, amount, reason, refund_status, refund_instruction_type,
+                   created_by, updated_by, date_created, date_updated
+            FROM refunds WHERE payment_reference IN (:refs)
+            AND (ccd_case_number IS NULL OR ccd_case_number NOT IN (:ccds))""";
+
+    private final NamedParameterJdbcTemplate paymentJdbcTemplate;
+    private final NamedParameterJdbcTemplate refundsJdbcTemplate;
+
+    public CaseProjectionRepository(@Qualifier("paymentJdbcTemplate") JdbcTemplate paymentJdbcTemplate,
+                                    @Qualifier("refundsJdbcTemplate") JdbcTemplate refundsJdbcTemplate) {
+        this.paymentJdbcTemplate = new NamedParameterJdbcTemplate(paymentJdbcTemplate);
+        this.refundsJdbcTemplate = new NamedParameterJdbcTemplate(refundsJdbcTemplate);
+    }
+
+    public List<PaymentFeeLinkEntity> findLinksByCcdCaseNumberIn(Collection<String> ccdCaseNumbers) {
+        return paymentJdbcTemplate.query(LINKS_SQL, Map.of("ccds", ccdCaseNumbers), LINK_MAPPER);
+    }
+
+    public List<FeeEntity> findFeesByCcdCaseNumberIn(Collection<String> ccdCaseNumbers) {
+        return paymentJdbcTemplate.query(FEES_SQL, Map.of("ccds", ccdCaseNumbers), FEE_MAPPER);
+    }
+
+    public List<PaymentEntity> findPaymentsByCcdCaseNumberIn(Collection<String> ccdCaseNumbers) {
+        return paymentJdbcTemplate.query(PAYMENTS_SQL, Map.of("ccds", ccdCaseNumbers), PAYMENT_MAPPER);
+    }
+
+    public List<RemissionEntity> findRemissionsByCcdCaseNumberIn(Collection<String> ccdCaseNumbers) {
+        return paymentJdbcTemplate.query(REMISSIONS_SQL, Map.of("ccds", ccdCaseNumbers), REMISSION_MAPPER);
+    }
+
+    public List<ApportionmentEntity> findApportionmentsByCcdCaseNumberIn(Collection<String> ccdCaseNumbers) {
+        return paymentJdbcTemplate.query(APPORTIONMENTS_SQL, Map.of("ccds", ccdCaseNumbers), APPORTIONMENT_MAPPER);
+    }
+
+    public List<RefundEntity> findRefundsByPaymentReferenceIn(Collection<String> paymentReferences) {
+        return refundsJdbcTemplate.query(REFUNDS_SQL, Map.of("refs", paymentReferences), REFUND_MAPPER);
+    }
+
+    public List<RefundEntity> findRefundsByCcdCaseNumberIn(Collection<String> ccdCaseNumbers) {
+        return refundsJdbcTemplate.query(REFUNDS_BY_CCD_SQL, Map.of("ccds", ccdCaseNumbers), REFUND_MAPPER);
+    }
+
+    /**
+     * Refunds on the given payment references recorded without a CCD case number or under another case
+     */
+    public List<RefundEntity> findOrphanRefundsByPaymentReferenceIn(Collection<String> paymentReferences,
+                                                                    Collection<String> ccdCaseNumbers) {
+        return refundsJdbcTemplate.query(ORPHAN_REFUNDS_SQL,
+                Map.of("refs", paymentReferences, "ccds", ccdCaseNumbers), REFUND_MAPPER);
+    }
+
+    static final RowMapper<PaymentFeeLinkEntity> LINK_MAPPER = (rs, rowNum) -> {
+        PaymentFeeLinkEntity link = new PaymentFeeLinkEntity();
+        link.setId(rs.getLong("id"));
+        link.setPaymentReference(rs.getString("payment_reference"));
+        link.setCcdCaseNumber(rs.getString("ccd_case_number"));
+        link.setCaseReference(rs.getString("case_reference"));
+        link.setOrgId(rs.getString("org_id"));
+        link.setEnterpriseServiceName(rs.getString("enterprise_service_name"));
+        link.setServiceRequestCallbackUrl(rs.getString("service_request_callback_url"));
+        link.setDateCreated(timestamp(rs, "date_created"));
+        link.setDateUpdated(timestamp(rs, "date_updated"));
+        return link;
+    };
+
+    static final RowMapper<FeeEntity> FEE_MAPPER = (rs, rowNum) -> {
+        FeeEntity fee = new FeeEntity();
+        fee.setId(rs.getLong("id"));
+        fee.setCode(rs.getString("code"));
+        fee.setVersion(rs.getString("version"));
+        fee.setPaymentLinkId(rs.getObject("payment_link_id", Long.class));
+        fee.setFeeAmount(rs.getBigDecimal("fee_amount"));
+        fee.setCalculatedAmount(rs.getBigDecimal("calculated_amount"));
+        fee.setNetAmount(rs.getBigDecimal("net_amount"));
+        fee.setAmountDue(rs.getBigDecimal("amount_due"));
+        fee.setVolume(rs.getObject("volume", Integer.class));
+        fee.setReference(rs.getString("reference"));
+        fee.setDateCreated(timestamp(rs, "date_created"));
+        fee.setDateUpdated(timestamp(rs, "date_updated"));
+        return fee;
+    };
+
+    static final RowMapper<PaymentEntity> PAYMENT_MAPPER = (rs, rowNum) -> {
+        PaymentEntity payment = new PaymentEntity();
+        payment.setId(rs.getLong("id"));
+        payment.setReference(rs.getString("reference"));
+        payment.setPaymentLinkId(rs.getObject("payment_link_id", Long.class));
+        payment.setAmount(rs.getBigDecimal("amount"));
+        payment.setCurrency(rs.getString("currency"));
+        payment.setPaymentStatus(rs.getString("payment_status"));
+        payment.setPaymentMethod(rs.getString("payment_method"));
+        payment.setPaymentProvider(rs.getString("payment_provider"));
+        payment.setPaymentChannel(rs.getString("payment_channel"));
+        payment.setExternalReference(rs.getString("external_reference"));
+        payment.setCustomerReference(rs.getString("customer_reference"));
+        payment.setPbaNumber(rs.getString("pba_number"));
+        payment.setPayerName(rs.getString("payer_name"));
+        payment.setDateCreated(timestamp(rs, "date_created"));
+        payment.setDateUpdated(timestamp(rs, "date_updated"));
+        payment.setBankedDate(timestamp(rs, "banked_date"));
+        return payment;
+    };
+
+    static final RowMapper<RemissionEntity> REMISSION_MAPPER = (rs, rowNum) -> {
+        RemissionEntity remission = new RemissionEntity();
+        remission.setId(rs.getLong("id"));
+        remission.setFeeId(rs.getObject("fee_id", Long.class));
+        remission.setHwfReference(rs.getString("hwf_reference"));
+        remission.setHwfAmount(rs.getBigDecimal("hwf_amount"));
+        remission.setBeneficiaryName(rs.getString("beneficiary_name"));
+        remission.setDateCreated(timestamp(rs, "date_created"));
+        remission.setDateUpdated(timestamp(rs, "date_updated"));
+        return remission;
+    };
+
+    static final RowMapper<ApportionmentEntity> APPORTIONMENT_MAPPER = (rs, rowNum) -> {
+        ApportionmentEntity apportionment = new ApportionmentEntity();
+        apportionment.setId(rs.getLong("id"));
+        apportionment.setPaymentId(rs.getObject("payment_id", Long.class));
+        apportionment.setFeeId(rs.getObject("fee_id", Long.class));
+        apportionment.setApportionAmount(rs.getBigDecimal("apportion_amount"));
+        apportionment.setApportionType(rs.getString("apportion_type"));
+        apportionment.setCallSurplusAmount(rs.getBigDecimal("call_surplus_amount"));
+        apportionment.setDateCreated(timestamp(rs, "date_created"));
+        apportionment.setDateUpdated(timestamp(rs, "date_updated"));
+        return apportionment;
+    };
+
+    static final RowMapper<RefundEntity> REFUND_MAPPER = (rs, rowNum) -> {
+        RefundEntity refund = new RefundEntity();
+        refund.setId(rs.getLong("id"));
+        refund.setReference(rs.getString("reference"));
+        refund.setPaymentReference(rs.getString("payment_reference"));
+        refund.setAmount(rs.getBigDecimal("amount"));
+        refund.setReason(rs.getString("reason"));
+        refund.setRefundStatus(rs.getString("refund_status"));
+        refund.setRefundInstructionType(rs.getString("refund_instruction_type"));
+        refund.setCreatedBy(rs.getString("created_by"));
+        refund.setUpdatedBy(rs.getString("updated_by"));
+        refund.setDateCreated(timestamp(rs, "date_created"));
+        refund.setDateUpdated(timestamp(rs, "date_updated"));
+        return refund;
+    };
+
+    private static LocalDateTime timestamp(ResultSet rs, String column) throws SQLException {
+        return rs.getObject(column, LocalDateTime.class);
+    }
+}
@@ -0,0 +1,182 @@
+package uk.gov.hmcts.reform.dbtool.repository;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+import uk.gov.hmcts.reform.dbtool.database.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static uk.gov.hmcts.reform.dbtool.repository.CaseProjectionRepository.*;
+
+/**
+ * Non-blocking counterpart of {@link CaseProjectionRepository} over R2DBC.
+ * Runs the same projection queries and maps the same columns into unmanaged entities;
+ * each query completes with all of its rows once they have arrived, without holding a thread while it waits.
+ * Collection parameters are expanded into one bind marker per value, so they must not be empty.
+ */
+@Repository
+@ConditionalOnProperty(name = "dbtool.r2dbc.enabled", havingValue = "true")
+public class CaseReactiveRepository {
+
+    private final DatabaseClient paymentDatabaseClient;
+    private final DatabaseClient refundsDatabaseClient;
+
+    public CaseReactiveRepository(@Qualifier("paymentDatabaseClient") DatabaseClient paymentDatabaseClient,
+                                  @Qualifier("refundsDatabaseClient") DatabaseClient refundsDatabaseClient) {
+        this.paymentDatabaseClient = paymentDatabaseClient;
+        this.refundsDatabaseClient = refundsDatabaseClient;
+    }
+
+    public Mono<List<PaymentFeeLinkEntity>> findLinksByCcdCaseNumberIn(Collection<String> ccdCaseNumbers) {
+        return query(paymentDatabaseClient, LINKS_SQL, Map.of("ccds", ccdCaseNumbers), CaseReactiveRepository::link);
+    }
+
+    public Mono<List<FeeEntity>> findFeesByCcdCaseNumberIn(Collection<String> ccdCaseNumbers) {
+        return query(paymentDatabaseClient, FEES_SQL, Map.of("ccds", ccdCaseNumbers), CaseReactiveRepository::fee);
+    }
+
+    public Mono<List<PaymentEntity>> findPaymentsByCcdCaseNumberIn(Collection<String> ccdCaseNumbers) {
+        return query(paymentDatabaseClient, PAYMENTS_SQL, Map.of("ccds", ccdCaseNumbers),
+                CaseReactiveRepository::payment);
+    }
+
+    public Mono<List<RemissionEntity>> findRemissionsByCcdCaseNumberIn(Collection<String> ccdCaseNumbers) {
+        return query(paymentDatabaseClient, REMISSIONS_SQL, Map.of("ccds", ccdCaseNumbers),
+                CaseReactiveRepository::remission);
+    }
+
+    public Mono<List<ApportionmentEntity>> findApportionmentsByCcdCaseNumberIn(Collection<String> ccdCaseNumbers) {
+        return query(paymentDatabaseClient, APPORTIONMENTS_SQL, Map.of("ccds", ccdCaseNumbers),
+                CaseReactiveRepository::apportionment);
+    }
+
+    public Mono<List<RefundEntity>> findRefundsByPaymentReferenceIn(Collection<String> paymentReferences) {
+        return query(refundsDatabaseClient, REFUNDS_SQL, Map.of("refs", paymentReferences),
+                CaseReactiveRepository::refund);
+    }
+
+    public Mono<List<RefundEntity>> findRefundsByCcdCaseNumberIn(Collection<String> ccdCaseNumbers) {
+        return query(refundsDatabaseClient, REFUNDS_BY_CCD_SQL, Map.of("ccds", ccdCaseNumbers),
+                CaseReactiveRepository::refund);
+    }
+
+    /**
+     * Refunds on the given payment references recorded without a CCD case number or under another case
+     */
+    public Mono<List<RefundEntity>> findOrphanRefundsByPaymentReferenceIn(Collection<String> paymentReferences,
+                                                                          Collection<String> ccdCaseNumbers) {
+        return query(refundsDatabaseClient, ORPHAN_REFUNDS_SQL,
+                Map.of("refs", paymentReferences, "ccds", ccdCaseNumbers), CaseReactiveRepository::refund);
+    }
+
+    private static <T> Mono<List<T>> query(DatabaseClient client, String sql, Map<String, ?> parameters,
+                                           Function<Readable, T> mapper) {
+        return client.sql(sql)
+                .bindValues(parameters)
+                .map(mapper)
+                .all()
+                .collectList();
+    }
+
+    static PaymentFeeLinkEntity link(Readable row) {
+        PaymentFeeLinkEntity link = new PaymentFeeLinkEntity();
+        link.setId(row.get("id", Long.class));
+        link.setPaymentReference(row.get("payment_reference", String.class));
+        link.setCcdCaseNumber(row.get("ccd_case_number", String.class));
+        link.setCaseReference(row.get("case_reference", String.class));
+        link.setOrgId(row.get("org_id", String.class));
+        link.setEnterpriseServiceName(row.get("enterprise_service_name", String.class));
+        link.setServiceRequestCallbackUrl(row.get("service_request_callback_url", String.class));
+        link.setDateCreated(row.get("date_created", LocalDateTime.class));
+        link.setDateUpdated(row.get("date_updated", LocalDateTime.class));
+        return link;
+    }
+
+    static FeeEntity fee(Readable row) {
+        FeeEntity fee = new FeeEntity();
+        fee.setId(row.get("id", Long.class));
+        fee.setCode(row.get("code", String.class));
+        fee.setVersion(row.get("version", String.class));
+        fee.setPaymentLinkId(row.get("payment_link_id", Long.class));
+        fee.setFeeAmount(row.get("fee_amount", BigDecimal.class));
+        fee.setCalculatedAmount(row.get("calculated_amount", BigDecimal.class));
+        fee.setNetAmount(row.get("net_amount", BigDecimal.class));
+        fee.setAmountDue(row.get("amount_due", BigDecimal.class));
+        fee.setVolume(row.get("volume", Integer.class));
+        fee.setReference(row.get("reference", String.class));
+        fee.setDateCreated(row.get("date_created", LocalDateTime.class));
+        fee.setDateUpdated(row.get("date_updated", LocalDateTime.class));
+        return fee;
+    }
+
+    static PaymentEntity payment(Readable row) {
+        PaymentEntity payment = new PaymentEntity();
+        payment.setId(row.get("id", Long.class));
+        payment.setReference(row.get("reference", String.class));
+        payment.setPaymentLinkId(row.get("payment_link_id", Long.class));
+        payment.setAmount(row.get("amount", BigDecimal.class));
+        payment.setCurrency(row.get("currency", String.class));
+        payment.setPaymentStatus(row.get("payment_status", String.class));
+        payment.setPaymentMethod(row.get("payment_method", String.class));
+        payment.setPaymentProvider(row.get("payment_provider", String.class));
+        payment.setPaymentChannel(row.get("payment_channel", String.class));
+        payment.setExternalReference(row.get("external_reference", String.class));
+        payment.setCustomerReference(row.get("customer_reference", String.class));
+        payment.setPbaNumber(row.get("pba_number", String.class));
+        payment.setPayerName(row.get("payer_name", String.class));
+        payment.setDateCreated(row.get("date_created", LocalDateTime.class));
+        payment.setDateUpdated(row.get("date_updated", LocalDateTime.class));
+        payment.setBankedDate(row.get("banked_date", LocalDateTime.class));
+        return payment;
+    }
+
+    static RemissionEntity remission(Readable row) {
+        RemissionEntity remission = new RemissionEntity();
+        remission.setId(row.get("id", Long.class));
+        remission.setFeeId(row.get("fee_id", Long.class));
+        remission.setHwfReference(row.get("hwf_reference", String.class));
+        remission.setHwfAmount(row.get("hwf_amount", BigDecimal.class));
+        remission.setBeneficiaryName(row.get("beneficiary_name", String.class));
+        remission.setDateCreated(row.get("date_created", LocalDateTime.class));
+        remission.setDateUpdated(row.get("date_updated", LocalDateTime.class));
+        return remission;
+    }
+
+    static ApportionmentEntity apportionment(Readable row) {
+        ApportionmentEntity apportionment = new ApportionmentEntity();
+        apportionment.setId(row.get("id", Long.class));
+        apportionment.setPaymentId(row.get("payment_id", Long.class));
+        apportionment.setFeeId(row.get("fee_id", Long.class));
+        apportionment.setApportionAmount(row.get("apportion_amount", BigDecimal.class));
+        apportionment.setApportionType(row.get("apportion_type", String.class));
+        apportionment.setCallSurplusAmount(row.get("call_surplus_amount", BigDecimal.class));
+        apportionment.setDateCreated(row.get("date_created", LocalDateTime.class));
+        apportionment.setDateUpdated(row.get("date_updated", LocalDateTime.class));
+        return apportionment;
+    }
+
+    static RefundEntity refund(Readable row) {
+        RefundEntity refund = new RefundEntity();
+        refund.setId(row.get("id", Long.class));
+        refund.setReference(row.get("reference", String.class));
+        refund.setPaymentReference(row.get("payment_reference", String.class));
+        refund.setAmount(row.get("amount", BigDecimal.class));
+        refund.setReason(row.get("reason", String.class));
+        refund.setRefundStatus(row.get("refund_status", String.class));
+        refund.setRefundInstructionType(row.get("refund_instruction_type", String.class));
+        refund.setCreatedBy(row.get("created_by", String.class));
+        refund.setUpdatedBy(row.get("updated_by", String.class));
+        refund.setDateCreated(row.get("date_created", LocalDateTime.class));
+        refund.setDateUpdated(row.get("date_updated", LocalDateTime.class));
+        return refund;
+    }
+}
@@ -0,0 +1,131 @@
+package uk.gov.hmcts.reform.dbtool.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import uk.gov.hmcts.reform.dbtool.domain.CaseSummary;
+import uk.gov.hmcts.reform.dbtool.timing.RequestTimings;
+
+import java.sql.Array;
+import java.util.*;
+
+/**
+ * Computes {@link CaseSummary} with aggregate queries: one against each database, no entities or domain objects.
+ *
+ * Totals follow {@link uk.gov.hmcts.reform.dbtool.domain.Case#getSummary()}: only fees and payments
+ * on one of the case's service requests count, remissions count through their fee and refunds through
+ * their payment reference, and every amount is truncated to whole units before it is added.
+ */
+@Repository
+public class CaseSummaryRepository {
+
+    static final String PAYMENT_TOTALS_SQL = """
+            WITH links AS (
+                SELECT id FROM payment_fee_link WHERE ccd_case_number = :ccd
+            ), fees AS (
+                SELECT id, fee_amount FROM fee
+                WHERE ccd_case_number = :ccd AND payment_link_id IN (SELECT id FROM links)
+            ), payments AS (
+                SELECT reference, amount FROM payment
+                WHERE ccd_case_number = :ccd AND payment_link_id IN (SELECT id FROM links)
+            ), remissions AS (
+                SELECT hwf_amount FROM remission
+                WHERE ccd_case_number = :ccd AND fee_id IN (SELECT id FROM fees)
+            )
+            SELECT (SELECT COUNT(*) FROM links) AS service_request_count,
+                   (SELECT COUNT(*) FROM fees) AS fee_count,
+                   (SELECT COALESCE(SUM(TRUNC(ROUND(fee_amount, 2))), 0) FROM fees) AS total_fees,
+                   (SELECT COUNT(*) FROM payments) AS payment_count,
+                   (SELECT COALESCE(SUM(TRUNC(ROUND(amount, 2))), 0) FROM payments) AS total_payments,
+                   (SELECT COUNT(*) FROM remissions) AS remission_count,
+                   (SELECT COALESCE(SUM(TRUNC(hwf_amount)), 0) FROM remissions) AS total_remissions,
+                   (SELECT array_agg(reference) FROM payments WHERE reference IS NOT NULL) AS payment_references""";
+
+    static final String REFUND_TOTALS_SQL = """
+            SELECT payment_reference, COUNT(*) AS refund_count, COALESCE(SUM(TRUNC(amount)), 0) AS total_refunds
+            FROM refunds WHERE payment_reference IN (:refs)
+            GROUP BY payment_reference""";
+
+    private final NamedParameterJdbcTemplate paymentJdbcTemplate;
+    private final NamedParameterJdbcTemplate refundsJdbcTemplate;
+
+    public CaseSummaryRepository(@Qualifier("paymentJdbcTemplate") JdbcTemplate paymentJdbcTemplate,
+                                 @Qualifier("refundsJdbcTemplate") JdbcTemplate refundsJdbcTemplate) {
+        this.paymentJdbcTemplate = new NamedParameterJdbcTemplate(paymentJdbcTemplate);
+        this.refundsJdbcTemplate = new NamedParameterJdbcTemplate(refundsJdbcTemplate);
+    }
+
+    /**
+     * Summarise a case, or return empty if it has no service requests
+     */
+    public Optional<CaseSummary> summarizeCase(String ccdCaseNumber) {
+        PaymentTotals totals = RequestTimings.time(RequestTimings.Phase.PAYMENTS_DB, () ->
+                paymentJdbcTemplate.queryForObject(PAYMENT_TOTALS_SQL, Map.of("ccd", ccdCaseNumber),
+                        PAYMENT_TOTALS_MAPPER));
+        if (totals == null || totals.serviceRequestCount() == 0) {
+            return Optional.empty();
+        }
+
+        // A refund is counted once for every case payment carrying its payment reference
+        Map<String, Integer> paymentsByReference = new HashMap<>();
+        totals.paymentReferences().forEach(ref -> paymentsByReference.merge(ref, 1, Integer::sum));
+
+        int[] refunds = paymentsByReference.isEmpty() ? new int[2] :
+                RequestTimings.time(RequestTimings.Phase.REFUNDS_DB, () -> {
+                    int[] sums = new int[2];
+                    refundsJdbcTemplate.query(REFUND_TOTALS_SQL, Map.of("refs", paymentsByReference.keySet()), rs -> {
+                        int payments = paymentsByReference.getOrDefault(rs.getString("payment_reference"), 0);
+                        sums[0] += payments * rs.getInt("refund_count");
+                        sums[1] += payments * rs.getBigDecimal("total_refunds").intValue();
+                    });
+                    return sums;
+                });
+        return Optional.of(toSummary(totals, refunds[0], refunds[1]));
+    }
+
+    static CaseSummary toSummary(PaymentTotals totals, int refundCount, int totalRefunds) {
+        return CaseSummary.builder()
+                .totalFees(totals.totalFees())
+                .totalPayments(totals.totalPayments())
+                .totalRefunds(totalRefunds)
+                .totalRemissions(totals.totalRemissions())
+                .serviceRequestCount(totals.serviceRequestCount())
+                .feeCount(totals.feeCount())
+                .paymentCount(totals.paymentCount())
+                .refundCount(refundCount)
+                .remissionCount(totals.remissionCount())
+                .netAmount(totals.totalPayments() + totals.totalRemissions() - totalRefunds)
+                .amountDue(totals.totalFees() - totals.totalPayments() - totals.totalRemissions())
+                .build();
+    }
+
+    /**
+     * Payments database aggregates and the payment references to look refunds up by
+     */
+    record PaymentTotals(
+        int serviceRequestCount,
+        int feeCount,
+        int totalFees,
+        int paymentCount,
+        int totalPayments,
+        int remissionCount,
+        int totalRemissions,
+        List<String> paymentReferences
+    ) {
+    }
+
+    static final RowMapper<PaymentTotals> PAYMENT_TOTALS_MAPPER = (rs, rowNum) -> {
+        Array references = rs.getArray("payment_references");
+        return new PaymentTotals(
+                rs.getInt("service_request_count"),
+                rs.getInt("fee_count"),
+                rs.getBigDecimal("total_fees").intValue(),
+                rs.getInt("payment_count"),
+                rs.getBigDecimal("total_payments").intValue(),
+                rs.getInt("remission_count"),
+                rs.getBigDecimal("total_remissions").intValue(),
+                references == null ? List.of() : Arrays.asList((String[]) references.getArray()));
+    };
+}
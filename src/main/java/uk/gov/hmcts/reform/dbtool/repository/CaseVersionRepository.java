@@ -0,0 +1,87 @@
+package uk.gov.hmcts.reform.dbtool.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import uk.gov.hmcts.reform.dbtool.domain.CaseVersion;
+import uk.gov.hmcts.reform.dbtool.timing.RequestTimings;
+
+import java.sql.Array;
+import java.util.*;
+
+/**
+ * Reads a {@link CaseVersion} with one aggregate query per database, without loading the case.
+ * A case exists only if it has at least one service request, so an empty result means not found.
+ */
+@Repository
+public class CaseVersionRepository {
+
+    static final String PAYMENT_VERSION_SQL = """
+            SELECT (SELECT COUNT(*) || '/' || COALESCE(MAX(date_updated)::text, '')
+                    FROM payment_fee_link WHERE ccd_case_number = :ccd) AS links,
+                   (SELECT COUNT(*) || '/' || COALESCE(MAX(date_updated)::text, '')
+                           || '/' || COALESCE(SUM(id::numeric * payment_link_id), 0)
+                    FROM fee WHERE ccd_case_number = :ccd) AS fees,
+                   (SELECT COUNT(*) || '/' || COALESCE(MAX(date_updated)::text, '')
+                           || '/' || COALESCE(SUM(id::numeric * payment_link_id), 0)
+                    FROM payment WHERE ccd_case_number = :ccd) AS payments,
+                   (SELECT COUNT(*) || '/' || COALESCE(MAX(date_updated)::text, '')
+                           || '/' || COALESCE(SUM(id::numeric * payment_link_id), 0)
+                    FROM remission WHERE ccd_case_number = :ccd) AS remissions,
+                   (SELECT COUNT(*) || '/' || COALESCE(MAX(date_updated)::text, '')
+                           || '/' || COALESCE(SUM(id::numeric * payment_link_id), 0)
+                    FROM fee_pay_apportion WHERE ccd_case_number = :ccd) AS apportionments,
+                   (SELECT array_agg(DISTINCT reference) FROM payment
+                    WHERE ccd_case_number = :ccd AND reference IS NOT NULL) AS payment_references""";
+
+    static final String REFUND_VERSION_SQL = """
+            SELECT COUNT(*) || '/' || COALESCE(MAX(date_updated)::text, '')
+            FROM refunds WHERE payment_reference IN (:refs)""";
+
+    /**
+     * A table part with no rows: zero count and no latest date_updated
+     */
+    private static final String EMPTY = "0/";
+
+    private final NamedParameterJdbcTemplate paymentJdbcTemplate;
+    private final NamedParameterJdbcTemplate refundsJdbcTemplate;
+
+    public CaseVersionRepository(@Qualifier("paymentJdbcTemplate") JdbcTemplate paymentJdbcTemplate,
+                                 @Qualifier("refundsJdbcTemplate") JdbcTemplate refundsJdbcTemplate) {
+        this.paymentJdbcTemplate = new NamedParameterJdbcTemplate(paymentJdbcTemplate);
+        this.refundsJdbcTemplate = new NamedParameterJdbcTemplate(refundsJdbcTemplate);
+    }
+
+    public Optional<CaseVersion> findCaseVersion(String ccdCaseNumber) {
+        return findCaseVersion(ccdCaseNumber, true);
+    }
+
+    /**
+     * Read a case version, skipping the refunds database when the caller does not load refunds
+     */
+    public Optional<CaseVersion> findCaseVersion(String ccdCaseNumber, boolean includeRefunds) {
+        List<String> paymentReferences = new ArrayList<>();
+        String payments = RequestTimings.time(RequestTimings.Phase.PAYMENTS_DB, () ->
+                paymentJdbcTemplate.queryForObject(PAYMENT_VERSION_SQL, Map.of("ccd", ccdCaseNumber),
+                        (rs, rowNum) -> {
+                            Array references = rs.getArray("payment_references");
+                            if (references != null) {
+                                paymentReferences.addAll(Arrays.asList((String[]) references.getArray()));
+                            }
+                            return rs.getString("links") + ";" + rs.getString("fees") + ";" + rs.getString("payments")
+                                    + ";" + rs.getString("remissions") + ";" + rs.getString("apportionments");
+                        }));
+        if (payments == null || payments.startsWith(EMPTY)) {
+            return Optional.empty();
+        }
+
+        if (!includeRefunds) {
+            return Optional.of(new CaseVersion(ccdCaseNumber + ";" + payments));
+        }
+        String refunds = paymentReferences.isEmpty() ? EMPTY : RequestTimings.time(RequestTimings.Phase.REFUNDS_DB,
+                () -> refundsJdbcTemplate.queryForObject(REFUND_VERSION_SQL, Map.of("refs", paymentReferences),
+                        String.class));
+        return Optional.of(new CaseVersion(ccdCaseNumber + ";" + payments + ";" + refunds));
+    }
+}
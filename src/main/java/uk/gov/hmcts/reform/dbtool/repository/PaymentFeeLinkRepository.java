@@ -4,10 +4,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import uk.gov.hmcts.reform.dbtool.database.PaymentFeeLinkEntity;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PaymentFeeLinkRepository extends JpaRepository<PaymentFeeLinkEntity, Long> {
     List<PaymentFeeLinkEntity> findByCcdCaseNumber(String ccdCaseNumber);
+    List<PaymentFeeLinkEntity> findByCcdCaseNumberIn(Collection<String> ccdCaseNumbers);
     List<PaymentFeeLinkEntity> findByPaymentReference(String paymentReference);
 }
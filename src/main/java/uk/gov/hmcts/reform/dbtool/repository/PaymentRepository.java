@@ -4,9 +4,11 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import uk.gov.hmcts.reform.dbtool.database.PaymentEntity;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<PaymentEntity, Long> {
     List<PaymentEntity> findByCcdCaseNumber(String ccdCaseNumber);
+    List<PaymentEntity> findByCcdCaseNumberIn(Collection<String> ccdCaseNumbers);
 }
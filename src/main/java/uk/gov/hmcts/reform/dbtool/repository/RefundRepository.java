@@ -1,6 +1,8 @@
 package uk.gov.hmcts.reform.dbtool.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import uk.gov.hmcts.reform.dbtool.database.RefundEntity;
 
@@ -11,4 +13,13 @@ public interface RefundRepository extends JpaRepository<RefundEntity, Long> {
     List<RefundEntity> findByCcdCaseNumber(String ccdCaseNumber);
     List<RefundEntity> findByPaymentReference(String paymentReference);
     List<RefundEntity> findByPaymentReferenceIn(List<String> paymentReferences);
+    List<RefundEntity> findByCcdCaseNumberIn(List<String> ccdCaseNumbers);
+
+    /**
+     * Refunds on the given payment references recorded without a CCD case number or under another case
+     */
+    @Query("SELECT r FROM RefundEntity r WHERE r.paymentReference IN :refs"
+            + " AND (r.ccdCaseNumber IS NULL OR r.ccdCaseNumber NOT IN :ccds)")
+    List<RefundEntity> findOrphansByPaymentReferenceIn(@Param("refs") List<String> paymentReferences,
+                                                      @Param("ccds") List<String> ccdCaseNumbers);
 }
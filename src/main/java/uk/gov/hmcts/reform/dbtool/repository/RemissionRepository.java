@@ -4,6 +4,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import uk.gov.hmcts.reform.dbtool.database.RemissionEntity;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,4 +12,5 @@ public interface RemissionRepository extends JpaRepository<RemissionEntity, Long
     List<RemissionEntity> findByFeeId(Long feeId);
     List<RemissionEntity> findByFeeIdIn(List<Long> feeIds);
     List<RemissionEntity> findByCcdCaseNumber(String ccdCaseNumber);
+    List<RemissionEntity> findByCcdCaseNumberIn(Collection<String> ccdCaseNumbers);
 }
@@ -0,0 +1,44 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import uk.gov.hmcts.reform.dbtool.database.*;
+import uk.gov.hmcts.reform.dbtool.domain.SqlGenerationResult;
+
+import java.util.List;
+
+/**
+ * The rows a patch request deletes and the rows it moves to another service request.
+ * Lists keep database order, so any SQL rendered from the plan is deterministic.
+ */
+public record CaseChangePlan(
+    List<PaymentFeeLinkEntity> linksToDelete,
+    List<FeeEntity> feesToDelete,
+    List<PaymentEntity> paymentsToDelete,
+    List<RemissionEntity> remissionsToDelete,
+    List<RefundEntity> refundsToDelete,
+    List<ApportionmentEntity> apportionmentsToDelete,
+    List<Move> feesToMove,
+    List<Move> paymentsToMove,
+    List<Move> remissionsToMove,
+    List<Move> apportionmentsToMove
+) {
+    /**
+     * A row whose payment_link_id changes
+     */
+    public record Move(Long id, Long fromLinkId, Long toLinkId) {
+    }
+
+    public SqlGenerationResult.ChangeSummary summary() {
+        return new SqlGenerationResult.ChangeSummary(
+                linksToDelete.size(),
+                feesToDelete.size(),
+                paymentsToDelete.size(),
+                remissionsToDelete.size(),
+                refundsToDelete.size(),
+                apportionmentsToDelete.size(),
+                feesToMove.size(),
+                paymentsToMove.size(),
+                remissionsToMove.size(),
+                apportionmentsToMove.size()
+        );
+    }
+}
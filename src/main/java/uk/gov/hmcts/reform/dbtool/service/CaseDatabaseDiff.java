@@ -0,0 +1,272 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.dbtool.database.*;
+import uk.gov.hmcts.reform.dbtool.domain.*;
+import uk.gov.hmcts.reform.dbtool.service.CaseChangePlan.Move;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Plans a patch request in the database for {@link CaseDiffStrategy#DATABASE}.
+ *
+ * The rows a patch request keeps are bound as array parameters: ids, payment references resolved to ids,
+ * hwf references and refund references. Each table is then asked for the rows outside its keep-set,
+ * returned in full because their rollback INSERTs need every column, and for the kept rows whose
+ * payment_link_id differs from the target, returned as ids. Memory and transfer grow with the change,
+ * not the case. Execution captures the deleted rows itself, so it asks for the ids of the rows to delete only.
+ *
+ * Matching follows {@link CaseEntityIndex}: a reference shared by several rows resolves to the row with the lowest id.
+ */
+@Component
+@Slf4j
+class CaseDatabaseDiff {
+
+    static final String CASE_EXISTS_SQL =
+            "SELECT EXISTS (SELECT 1 FROM payment_fee_link WHERE ccd_case_number = :ccd)";
+
+    static final String MATCH_LINKS_SQL = """
+            SELECT id, payment_reference AS reference FROM payment_fee_link
+            WHERE ccd_case_number = :ccd
+            AND (id = ANY(CAST(:ids AS bigint[])) OR payment_reference = ANY(CAST(:refs AS text[])))
+            ORDER BY id""";
+
+    static final String MATCH_PAYMENTS_SQL = """
+            SELECT id, reference FROM payment
+            WHERE ccd_case_number = :ccd
+            AND (id = ANY(CAST(:ids AS bigint[])) OR reference = ANY(CAST(:refs AS text[])))
+            ORDER BY id""";
+
+    /**
+     * Rows outside an id keep-set; the placeholders are {@link #ALL_COLUMNS} or {@link #ID_COLUMN}
+     * and a table name constant
+     */
+    static final String DELETES_BY_ID_SQL = """
+            SELECT %s FROM %s
+            WHERE ccd_case_number = :ccd AND NOT (id = ANY(CAST(:keep AS bigint[])))
+            ORDER BY id""";
+
+    /**
+     * A NULL hwf_reference never matches the keep-set, so it is deleted like any other unkept row
+     */
+    static final String REMISSION_DELETES_SQL = """
+            SELECT %s FROM remission
+            WHERE ccd_case_number = :ccd AND NOT COALESCE(hwf_reference = ANY(CAST(:keep AS text[])), false)
+            ORDER BY id""";
+
+    /**
+     * Kept rows whose payment_link_id is not the target; %s is a table name constant
+     */
+    static final String MOVES_BY_ID_SQL = """
+            SELECT t.id, t.payment_link_id, k.target FROM %s t
+            JOIN unnest(CAST(:keys AS bigint[]), CAST(:targets AS bigint[])) AS k(id, target) ON t.id = k.id
+            WHERE t.ccd_case_number = :ccd AND t.payment_link_id IS DISTINCT FROM k.target
+            ORDER BY t.id""";
+
+    static final String REMISSION_MOVES_SQL = """
+            SELECT t.id, t.payment_link_id, k.target FROM remission t
+            JOIN unnest(CAST(:keys AS text[]), CAST(:targets AS bigint[])) AS k(ref, target)
+                ON t.hwf_reference = k.ref
+            WHERE t.ccd_case_number = :ccd AND t.payment_link_id IS DISTINCT FROM k.target
+            ORDER BY t.id""";
+
+    static final String PAYMENT_REFERENCES_SQL =
+            "SELECT DISTINCT reference FROM payment WHERE ccd_case_number = :ccd AND reference IS NOT NULL";
+
+    /**
+     * Refunds on the case's payments, whatever CCD they were recorded under, outside the refund keep-set
+     */
+    static final String REFUND_DELETES_SQL = """
+            SELECT %s FROM refunds
+            WHERE payment_reference = ANY(CAST(:refs AS text[]))
+            AND NOT COALESCE(reference = ANY(CAST(:keep AS text[])), false)
+            ORDER BY id""";
+
+    static final String ALL_COLUMNS = "*";
+
+    static final String ID_COLUMN = "id";
+
+    private static final RowMapper<Move> MOVE_MAPPER = (rs, rowNum) -> new Move(
+            rs.getLong("id"), rs.getObject("payment_link_id", Long.class), rs.getLong("target"));
+
+    private final NamedParameterJdbcTemplate paymentJdbcTemplate;
+    private final NamedParameterJdbcTemplate refundsJdbcTemplate;
+
+    CaseDatabaseDiff(@Qualifier("paymentJdbcTemplate") JdbcTemplate paymentJdbcTemplate,
+                     @Qualifier("refundsJdbcTemplate") JdbcTemplate refundsJdbcTemplate) {
+        this.paymentJdbcTemplate = new NamedParameterJdbcTemplate(paymentJdbcTemplate);
+        this.refundsJdbcTemplate = new NamedParameterJdbcTemplate(refundsJdbcTemplate);
+    }
+
+    /**
+     * A case exists only if it has at least one service request (payment_fee_link)
+     */
+    boolean caseExists(String ccdCaseNumber) {
+        return Boolean.TRUE.equals(paymentJdbcTemplate.queryForObject(CASE_EXISTS_SQL,
+                Map.of("ccd", ccdCaseNumber), Boolean.class));
+    }
+
+    /**
+     * Work out which rows the patch request deletes and which it moves to another service request.
+     * Rows to delete are read in full, or with only their id set when {@code fullRows} is false.
+     */
+    CaseChangePlan planChanges(CasePatchRequest patchRequest, boolean fullRows) {
+        String ccd = patchRequest.ccdCaseNumber();
+        String columns = fullRows ? ALL_COLUMNS : ID_COLUMN;
+        log.info("Generating SQL for CCD: {} in the database", ccd);
+
+        // Resolve service requests to ids; only their children are kept
+        KeyMatches links = match(MATCH_LINKS_SQL, ccd, patchRequest.serviceRequests(),
+                ServiceRequest::id, ServiceRequest::paymentReference);
+        Map<Long, List<Payment>> paymentsByLinkId = new LinkedHashMap<>();
+        for (ServiceRequest sr : patchRequest.serviceRequests()) {
+            Long linkId = links.find(sr.id(), sr.paymentReference());
+            if (linkId != null) {
+                paymentsByLinkId.computeIfAbsent(linkId, id -> new ArrayList<>()).addAll(sr.payments());
+            }
+        }
+        // Payments match by id, or by reference across all service requests so a payment can move
+        KeyMatches payments = match(MATCH_PAYMENTS_SQL, ccd,
+                paymentsByLinkId.values().stream().flatMap(List::stream).toList(), Payment::id, Payment::reference);
+
+        // Keep-sets with the target payment_link_id of each kept row; a later entry wins, as in memory
+        Set<Long> keptLinks = new LinkedHashSet<>();
+        Map<Long, Long> feeTargets = new LinkedHashMap<>();
+        Map<String, Long> remissionTargets = new LinkedHashMap<>();
+        Map<Long, Long> paymentTargets = new LinkedHashMap<>();
+        Map<Long, Long> apportionmentTargets = new LinkedHashMap<>();
+        Set<String> keptRefunds = new LinkedHashSet<>();
+        for (ServiceRequest sr : patchRequest.serviceRequests()) {
+            Long linkId = links.find(sr.id(), sr.paymentReference());
+            if (linkId == null) {
+                continue;
+            }
+            keptLinks.add(linkId);
+            for (Fee fee : sr.fees()) {
+                putIfKeyed(feeTargets, fee.id(), linkId);
+                for (Remission remission : fee.remissions()) {
+                    putIfKeyed(remissionTargets, remission.hwfReference(), linkId);
+                }
+            }
+            for (Payment payment : sr.payments()) {
+                putIfKeyed(paymentTargets, payments.find(payment.id(), payment.reference()), linkId);
+                for (Refund refund : payment.refunds()) {
+                    if (refund.reference() != null) {
+                        keptRefunds.add(refund.reference());
+                    }
+                }
+                for (Apportionment apportionment : payment.apportionments()) {
+                    putIfKeyed(apportionmentTargets, apportionment.id(), linkId);
+                }
+            }
+        }
+
+        return new CaseChangePlan(
+                deletes("payment_fee_link", PaymentFeeLinkEntity.class, columns, ccd, keptLinks),
+                deletes("fee", FeeEntity.class, columns, ccd, feeTargets.keySet()),
+                deletes("payment", PaymentEntity.class, columns, ccd, paymentTargets.keySet()),
+                paymentJdbcTemplate.query(REMISSION_DELETES_SQL.formatted(columns),
+                        Map.of("ccd", ccd, "keep", texts(remissionTargets.keySet())),
+                        BeanPropertyRowMapper.newInstance(RemissionEntity.class)),
+                refundDeletes(columns, ccd, keptRefunds),
+                deletes("fee_pay_apportion", ApportionmentEntity.class, columns, ccd, apportionmentTargets.keySet()),
+                moves("fee", ccd, feeTargets),
+                moves("payment", ccd, paymentTargets),
+                paymentJdbcTemplate.query(REMISSION_MOVES_SQL, Map.of("ccd", ccd,
+                        "keys", texts(remissionTargets.keySet()),
+                        "targets", ids(remissionTargets.values())), MOVE_MAPPER),
+                moves("fee_pay_apportion", ccd, apportionmentTargets));
+    }
+
+    /**
+     * Rows outside the keep-set: in full, the rollback renders every mapped column
+     */
+    private <E> List<E> deletes(String table, Class<E> type, String columns, String ccd, Collection<Long> keep) {
+        return paymentJdbcTemplate.query(DELETES_BY_ID_SQL.formatted(columns, table),
+                Map.of("ccd", ccd, "keep", ids(keep)), BeanPropertyRowMapper.newInstance(type));
+    }
+
+    private List<Move> moves(String table, String ccd, Map<Long, Long> targets) {
+        if (targets.isEmpty()) {
+            return List.of();
+        }
+        return paymentJdbcTemplate.query(MOVES_BY_ID_SQL.formatted(table), Map.of("ccd", ccd,
+                "keys", ids(targets.keySet()), "targets", ids(targets.values())), MOVE_MAPPER);
+    }
+
+    private List<RefundEntity> refundDeletes(String columns, String ccd, Set<String> keep) {
+        List<String> paymentReferences = paymentJdbcTemplate.queryForList(PAYMENT_REFERENCES_SQL,
+                Map.of("ccd", ccd), String.class);
+        if (paymentReferences.isEmpty()) {
+            return List.of();
+        }
+        return refundsJdbcTemplate.query(REFUND_DELETES_SQL.formatted(columns),
+                Map.of("refs", texts(paymentReferences), "keep", texts(keep)),
+                BeanPropertyRowMapper.newInstance(RefundEntity.class));
+    }
+
+    /**
+     * Match items identified by id, or by reference when they have none, to rows of the case
+     */
+    private <T> KeyMatches match(String sql, String ccd, List<T> items,
+                                 Function<T, Long> id, Function<T, String> reference) {
+        List<Long> ids = new ArrayList<>();
+        List<String> references = new ArrayList<>();
+        for (T item : items) {
+            if (id.apply(item) != null) {
+                ids.add(id.apply(item));
+            } else if (reference.apply(item) != null) {
+                references.add(reference.apply(item));
+            }
+        }
+        KeyMatches matches = new KeyMatches(new HashSet<>(), new HashMap<>());
+        if (ids.isEmpty() && references.isEmpty()) {
+            return matches;
+        }
+        Set<String> referenced = new HashSet<>(references);
+        paymentJdbcTemplate.query(sql, Map.of("ccd", ccd, "ids", ids(ids), "refs", texts(references)), rs -> {
+            long rowId = rs.getLong("id");
+            String rowReference = rs.getString("reference");
+            matches.ids().add(rowId);
+            // Rows arrive in id order, so the lowest id wins a shared reference
+            if (rowReference != null && referenced.contains(rowReference)) {
+                matches.idsByReference().putIfAbsent(rowReference, rowId);
+            }
+        });
+        return matches;
+    }
+
+    private static <K> void putIfKeyed(Map<K, Long> targets, K key, Long linkId) {
+        if (key != null) {
+            targets.put(key, linkId);
+        }
+    }
+
+    private static long[] ids(Collection<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static String[] texts(Collection<String> texts) {
+        return texts.toArray(String[]::new);
+    }
+
+    /**
+     * Case rows matched by id, and the id each reference resolved to
+     */
+    private record KeyMatches(Set<Long> ids, Map<String, Long> idsByReference) {
+
+        Long find(Long id, String reference) {
+            if (id != null) {
+                return ids.contains(id) ? id : null;
+            }
+            return reference == null ? null : idsByReference.get(reference);
+        }
+    }
+}
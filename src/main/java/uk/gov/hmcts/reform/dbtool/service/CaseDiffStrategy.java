@@ -0,0 +1,11 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+/**
+ * Where a patch request is compared with the stored case
+ */
+public enum CaseDiffStrategy {
+    /** Load every row of the case and compare in memory */
+    MEMORY,
+    /** Send the keep-sets to the database and load only the rows to delete */
+    DATABASE
+}
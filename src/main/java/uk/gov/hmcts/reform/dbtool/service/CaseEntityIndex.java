@@ -0,0 +1,142 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import uk.gov.hmcts.reform.dbtool.database.*;
+import uk.gov.hmcts.reform.dbtool.domain.Apportionment;
+import uk.gov.hmcts.reform.dbtool.domain.Fee;
+import uk.gov.hmcts.reform.dbtool.domain.Payment;
+import uk.gov.hmcts.reform.dbtool.domain.Refund;
+import uk.gov.hmcts.reform.dbtool.domain.Remission;
+import uk.gov.hmcts.reform.dbtool.domain.ServiceRequest;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Hash lookups from patch request entities to the database rows they refer to.
+ * Built once per diff so every match is O(1) instead of a scan of the case's rows.
+ *
+ * Rows are matched by id first, then by natural key: payment reference for service requests and payments,
+ * HWF reference for remissions and refund reference for refunds. Where a natural key is shared,
+ * the row with the lowest id wins, as in {@link CaseDatabaseDiff}, so the diff strategy never changes which rows
+ * are kept; for remissions and refunds every row with the reference matches.
+ * Natural-key maps are built on first use, so a patch that identifies everything by id never pays for them.
+ */
+final class CaseEntityIndex {
+
+    private final CaseSnapshot snapshot;
+    private final Map<Long, PaymentFeeLinkEntity> linkById;
+    private final Map<Long, FeeEntity> feeById;
+    private final Map<Long, PaymentEntity> paymentById;
+    private final Map<Long, ApportionmentEntity> apportionmentById;
+
+    private Map<String, PaymentFeeLinkEntity> linkByPaymentReference;
+    private Map<String, PaymentEntity> paymentByReference;
+    private Map<String, List<RemissionEntity>> remissionsByHwfReference;
+    private Map<String, List<RefundEntity>> refundsByReference;
+
+    private CaseEntityIndex(CaseSnapshot snapshot) {
+        this.snapshot = snapshot;
+        linkById = index(snapshot.links(), PaymentFeeLinkEntity::getId);
+        feeById = index(snapshot.fees(), FeeEntity::getId);
+        paymentById = index(snapshot.payments(), PaymentEntity::getId);
+        apportionmentById = index(snapshot.apportionments(), ApportionmentEntity::getId);
+    }
+
+    static CaseEntityIndex of(CaseSnapshot snapshot) {
+        return new CaseEntityIndex(snapshot);
+    }
+
+    PaymentFeeLinkEntity find(ServiceRequest serviceRequest) {
+        if (serviceRequest.id() != null) {
+            return linkById.get(serviceRequest.id());
+        }
+        if (serviceRequest.paymentReference() == null) {
+            return null;
+        }
+        if (linkByPaymentReference == null) {
+            linkByPaymentReference = indexLowestId(snapshot.links(), PaymentFeeLinkEntity::getPaymentReference,
+                    PaymentFeeLinkEntity::getId);
+        }
+        return linkByPaymentReference.get(serviceRequest.paymentReference());
+    }
+
+    FeeEntity find(Fee fee) {
+        return fee.id() != null ? feeById.get(fee.id()) : null;
+    }
+
+    /**
+     * Payments match by id, or by reference across all service requests so a payment can move
+     */
+    PaymentEntity find(Payment payment) {
+        if (payment.id() != null) {
+            return paymentById.get(payment.id());
+        }
+        if (payment.reference() == null) {
+            return null;
+        }
+        if (paymentByReference == null) {
+            paymentByReference = indexLowestId(snapshot.payments(), PaymentEntity::getReference, PaymentEntity::getId);
+        }
+        return paymentByReference.get(payment.reference());
+    }
+
+    List<RemissionEntity> find(Remission remission) {
+        if (remission.hwfReference() == null) {
+            return List.of();
+        }
+        if (remissionsByHwfReference == null) {
+            remissionsByHwfReference = group(snapshot.remissions(), RemissionEntity::getHwfReference);
+        }
+        return remissionsByHwfReference.getOrDefault(remission.hwfReference(), List.of());
+    }
+
+    List<RefundEntity> find(Refund refund) {
+        if (refund.reference() == null) {
+            return List.of();
+        }
+        if (refundsByReference == null) {
+            refundsByReference = group(snapshot.refunds(), RefundEntity::getReference);
+        }
+        return refundsByReference.getOrDefault(refund.reference(), List.of());
+    }
+
+    ApportionmentEntity find(Apportionment apportionment) {
+        return apportionment.id() != null ? apportionmentById.get(apportionment.id()) : null;
+    }
+
+    private static <K, E> Map<K, E> index(List<E> rows, Function<E, K> key) {
+        Map<K, E> index = new HashMap<>(Math.max(16, rows.size() * 4 / 3 + 1));
+        for (E row : rows) {
+            K k = key.apply(row);
+            if (k != null) {
+                index.putIfAbsent(k, row);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Index by a key several rows may share, keeping the row with the lowest id whatever order the rows were loaded in
+     */
+    private static <K, E> Map<K, E> indexLowestId(List<E> rows, Function<E, K> key, Function<E, Long> id) {
+        Map<K, E> index = new HashMap<>(Math.max(16, rows.size() * 4 / 3 + 1));
+        for (E row : rows) {
+            K k = key.apply(row);
+            if (k != null) {
+                index.merge(k, row, (kept, candidate) -> id.apply(candidate) < id.apply(kept) ? candidate : kept);
+            }
+        }
+        return index;
+    }
+
+    private static <K, E> Map<K, List<E>> group(List<E> rows, Function<E, K> key) {
+        Map<K, List<E>> groups = new HashMap<>(Math.max(16, rows.size() * 4 / 3 + 1));
+        for (E row : rows) {
+            K k = key.apply(row);
+            if (k != null) {
+                groups.computeIfAbsent(k, x -> new ArrayList<>(1)).add(row);
+            }
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,16 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a change no longer matches the database, for example because a row was removed
+ * after the case was read. Both transactions are rolled back.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class CaseExecutionException extends RuntimeException {
+
+    public CaseExecutionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,311 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.dbtool.database.*;
+import uk.gov.hmcts.reform.dbtool.domain.CaseExecutionResult;
+import uk.gov.hmcts.reform.dbtool.domain.CaseExecutionResult.BatchTiming;
+import uk.gov.hmcts.reform.dbtool.domain.CasePatchRequest;
+import uk.gov.hmcts.reform.dbtool.domain.SqlGenerationResult;
+import uk.gov.hmcts.reform.dbtool.service.CaseChangePlan.Move;
+import uk.gov.hmcts.reform.dbtool.timing.RequestTimings;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Applies a patch request's deletions and moves to both databases with parameterised JDBC statements.
+ *
+ * The payments transaction is opened first and the refunds transaction inside it, so the refunds
+ * side commits first. Any failure before that commit, including a refunds failure, rolls back both.
+ * A failure committing payments after refunds committed is logged with the refunds rollback SQL.
+ *
+ * Deletes use {@code DELETE ... RETURNING *}, so the rollback INSERTs are built from the exact rows
+ * removed rather than from an earlier read. When {@code dbtool.execution.rollback-dir} is set, each
+ * database's rollback script is written there as soon as that database commits.
+ */
+@Service
+@Slf4j
+public class CaseExecutionService {
+
+    static final String BATCH_TIMER = "dbtool.execution.batch";
+
+    private static final DateTimeFormatter ROLLBACK_FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final CaseDiffService caseDiffService;
+    private final JdbcTemplate paymentJdbcTemplate;
+    private final JdbcTemplate refundsJdbcTemplate;
+    private final TransactionTemplate paymentTransaction;
+    private final TransactionTemplate refundTransaction;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final Path rollbackDir;
+
+    public CaseExecutionService(
+            CaseDiffService caseDiffService,
+            @Qualifier("paymentJdbcTemplate") JdbcTemplate paymentJdbcTemplate,
+            @Qualifier("refundsJdbcTemplate") JdbcTemplate refundsJdbcTemplate,
+            @Qualifier("paymentTransactionManager") PlatformTransactionManager paymentTransactionManager,
+            @Qualifier("refundTransactionManager") PlatformTransactionManager refundTransactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${dbtool.execution.batch-size:500}") int batchSize,
+            @Value("${dbtool.execution.rollback-dir:}") String rollbackDir) {
+        this.caseDiffService = caseDiffService;
+        this.paymentJdbcTemplate = paymentJdbcTemplate;
+        this.refundsJdbcTemplate = refundsJdbcTemplate;
+        this.paymentTransaction = new TransactionTemplate(paymentTransactionManager);
+        this.refundTransaction = new TransactionTemplate(refundTransactionManager);
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.rollbackDir = rollbackDir.isBlank() ? null : Path.of(rollbackDir);
+    }
+
+    /**
+     * Compare the patch request with the database and apply the resulting changes.
+     * The plan is read inside the payments transaction, so the statements match the rows they change.
+     * Only the ids of the rows to delete are planned; the deletes return the rows themselves.
+     * The same read tells whether the case exists: returns empty, changing nothing, if it has no service requests.
+     * Plans with the given diff strategy, or the configured one if null.
+     */
+    @CacheEvict(cacheNames = CaseQueryService.CASE_CACHE, allEntries = true)
+    public Optional<CaseExecutionResult> execute(CasePatchRequest patchRequest, CaseDiffStrategy strategy) {
+        String ccdCaseNumber = patchRequest.ccdCaseNumber();
+        log.info("Executing changes for CCD: {}", ccdCaseNumber);
+        long start = System.nanoTime();
+        String executedAt = LocalDateTime.now().format(ROLLBACK_FILE_TIME);
+        List<BatchTiming> timings = new ArrayList<>();
+        List<Executed> committed = new ArrayList<>(1);
+        List<String> rollbackFiles = new ArrayList<>(2);
+
+        try {
+            paymentTransaction.executeWithoutResult(paymentStatus -> {
+                Optional<CaseChangePlan> found = caseDiffService.findChanges(patchRequest, strategy, false);
+                if (found.isEmpty()) {
+                    return;
+                }
+                CaseChangePlan plan = found.get();
+                DeletedRows deleted = new DeletedRows();
+                for (Batch batch : paymentBatches(plan)) {
+                    timings.add(run(paymentJdbcTemplate, "payments", batch, deleted));
+                }
+                refundTransaction.executeWithoutResult(refundStatus -> {
+                    for (Batch batch : refundBatches(plan)) {
+                        timings.add(run(refundsJdbcTemplate, "refunds", batch, deleted));
+                    }
+                });
+                CaseChangePlan executed = deleted.replaceDeletes(plan);
+                SqlGenerationResult rollback = CaseSqlRenderer.render(executed, SqlOutputMode.PER_ROW);
+                committed.add(new Executed(executed, rollback));
+                writeRollback(ccdCaseNumber, executedAt, "refunds", rollback.refundsDatabaseRollbackSql())
+                        .ifPresent(rollbackFiles::add);
+            });
+        } catch (RuntimeException e) {
+            if (!committed.isEmpty() && !committed.get(0).plan().refundsToDelete().isEmpty()) {
+                // Refunds committed but payments did not: the refunds database needs restoring by hand
+                log.error("Payments commit failed after refunds committed for CCD {}; refunds rollback {}: {}",
+                        ccdCaseNumber, rollbackFiles,
+                        committed.get(0).rollback().refundsDatabaseRollbackSql());
+            }
+            throw e;
+        }
+
+        if (committed.isEmpty()) {
+            return Optional.empty();
+        }
+        CaseChangePlan plan = committed.get(0).plan();
+        SqlGenerationResult rollback = committed.get(0).rollback();
+        writeRollback(ccdCaseNumber, executedAt, "payments", rollback.paymentDatabaseRollbackSql())
+                .ifPresent(file -> rollbackFiles.add(0, file));
+        long totalMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Executed {} batches for CCD {} in {} ms: {}",
+                timings.size(), ccdCaseNumber, totalMillis, plan.summary());
+
+        return Optional.of(new CaseExecutionResult(plan.summary(), timings, totalMillis,
+                rollback.paymentDatabaseRollbackSql(), rollback.refundsDatabaseRollbackSql(), rollbackFiles));
+    }
+
+    /**
+     * Payments database batches in the same order as the generated SQL: moves, then deletes children first
+     */
+    List<Batch> paymentBatches(CaseChangePlan plan) {
+        List<Batch> batches = new ArrayList<>();
+        addMoves(batches, "fee_pay_apportion", plan.apportionmentsToMove());
+        addMoves(batches, "remission", plan.remissionsToMove());
+        addMoves(batches, "fee", plan.feesToMove());
+        addMoves(batches, "payment", plan.paymentsToMove());
+        addDeletes(batches, "fee_pay_apportion", ApportionmentEntity.class, plan.apportionmentsToDelete(),
+                ApportionmentEntity::getId);
+        addDeletes(batches, "remission", RemissionEntity.class, plan.remissionsToDelete(), RemissionEntity::getId);
+        addDeletes(batches, "fee", FeeEntity.class, plan.feesToDelete(), FeeEntity::getId);
+        addDeletes(batches, "payment", PaymentEntity.class, plan.paymentsToDelete(), PaymentEntity::getId);
+        addDeletes(batches, "payment_fee_link", PaymentFeeLinkEntity.class, plan.linksToDelete(),
+                PaymentFeeLinkEntity::getId);
+        return batches;
+    }
+
+    List<Batch> refundBatches(CaseChangePlan plan) {
+        List<Batch> batches = new ArrayList<>();
+        addDeletes(batches, "refunds", RefundEntity.class, plan.refundsToDelete(), RefundEntity::getId);
+        return batches;
+    }
+
+    private BatchTiming run(JdbcTemplate jdbcTemplate, String database, Batch batch, DeletedRows deleted) {
+        Timer timer = Timer.builder(BATCH_TIMER)
+                .description("Latency of JDBC batches applying case changes")
+                .tag("database", database)
+                .tag("table", batch.table())
+                .tag("operation", batch.operation())
+                .register(meterRegistry);
+
+        long start = System.nanoTime();
+        int affected = batch.deletedType() == null ? update(jdbcTemplate, batch) : delete(jdbcTemplate, batch, deleted);
+        long elapsed = System.nanoTime() - start;
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
+        RequestTimings.recordCurrent(RequestTimings.Phase.database(database), elapsed);
+
+        if (affected != batch.args().size()) {
+            throw new CaseExecutionException(String.format("%s %s changed %d of %d rows; the case changed since it was read",
+                    batch.operation(), batch.table(), affected, batch.args().size()));
+        }
+        BatchTiming timing = new BatchTiming(database, batch.table(), batch.operation(), affected,
+                TimeUnit.NANOSECONDS.toMillis(elapsed));
+        log.debug("{}", timing);
+        return timing;
+    }
+
+    private int update(JdbcTemplate jdbcTemplate, Batch batch) {
+        int[][] counts = jdbcTemplate.batchUpdate(batch.sql(), batch.args(), batchSize,
+                (ps, args) -> {
+                    for (int i = 0; i < args.length; i++) {
+                        ps.setObject(i + 1, args[i]);
+                    }
+                });
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).sum();
+    }
+
+    /**
+     * Delete up to batchSize ids per statement and keep the rows each statement returns
+     */
+    private int delete(JdbcTemplate jdbcTemplate, Batch batch, DeletedRows deleted) {
+        BeanPropertyRowMapper<?> mapper = BeanPropertyRowMapper.newInstance(batch.deletedType());
+        int affected = 0;
+        for (int from = 0; from < batch.args().size(); from += batchSize) {
+            long[] ids = batch.args().subList(from, Math.min(from + batchSize, batch.args().size())).stream()
+                    .mapToLong(args -> (Long) args[0])
+                    .toArray();
+            List<?> rows = jdbcTemplate.query(batch.sql(), ps -> ps.setObject(1, ids), mapper);
+            deleted.add(batch.deletedType(), rows);
+            affected += rows.size();
+        }
+        return affected;
+    }
+
+    /**
+     * Write one database's rollback script, or nothing if there is none or no rollback directory is set.
+     * The changes are already committed, so a write failure is logged rather than thrown;
+     * the script is still returned in the response.
+     */
+    private Optional<String> writeRollback(String ccdCaseNumber, String executedAt, String database,
+                                           List<String> statements) {
+        if (rollbackDir == null || statements.isEmpty()) {
+            return Optional.empty();
+        }
+        Path file = rollbackDir.resolve(ccdCaseNumber + "-" + executedAt + "-" + database + ".sql");
+        List<String> lines = new ArrayList<>(statements.size() + 1);
+        lines.add("-- Rollback for CCD " + ccdCaseNumber + " on the " + database + " database, executed " + executedAt);
+        lines.addAll(statements);
+        try {
+            Files.createDirectories(rollbackDir);
+            Files.write(file, lines);
+        } catch (IOException e) {
+            log.error("Could not write {} rollback for CCD {} to {}", database, ccdCaseNumber, file, e);
+            return Optional.empty();
+        }
+        log.info("Wrote {} rollback for CCD {} to {}", database, ccdCaseNumber, file);
+        return Optional.of(file.toString());
+    }
+
+    private static void addMoves(List<Batch> batches, String table, List<Move> moves) {
+        if (moves.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = moves.stream()
+                .map(move -> new Object[]{move.toLinkId(), move.id()})
+                .toList();
+        batches.add(new Batch(table, "UPDATE",
+                "UPDATE " + table + " SET payment_link_id = ? WHERE id = ?", args, null));
+    }
+
+    private static <T> void addDeletes(List<Batch> batches, String table, Class<T> type, List<T> rows,
+                                       Function<T, Long> id) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = rows.stream()
+                .map(row -> new Object[]{id.apply(row)})
+                .toList();
+        batches.add(new Batch(table, "DELETE",
+                "DELETE FROM " + table + " WHERE id = ANY(CAST(? AS bigint[])) RETURNING *", args, type));
+    }
+
+    /**
+     * A parameterised statement and one argument array per row.
+     * Deletes carry the entity type their returned rows map to; moves have none.
+     */
+    record Batch(String table, String operation, String sql, List<Object[]> args, Class<?> deletedType) {
+    }
+
+    /**
+     * The committed plan, with deletes as returned by the database, and its rollback SQL
+     */
+    private record Executed(CaseChangePlan plan, SqlGenerationResult rollback) {
+    }
+
+    /**
+     * Rows returned by the deletes, by entity type
+     */
+    private static final class DeletedRows {
+
+        private final Map<Class<?>, List<Object>> rows = new HashMap<>();
+
+        void add(Class<?> type, List<?> deleted) {
+            rows.computeIfAbsent(type, t -> new ArrayList<>()).addAll(deleted);
+        }
+
+        /**
+         * The plan's moves with its planned deletes replaced by the rows actually deleted
+         */
+        CaseChangePlan replaceDeletes(CaseChangePlan plan) {
+            return new CaseChangePlan(
+                    get(PaymentFeeLinkEntity.class),
+                    get(FeeEntity.class),
+                    get(PaymentEntity.class),
+                    get(RemissionEntity.class),
+                    get(RefundEntity.class),
+                    get(ApportionmentEntity.class),
+                    plan.feesToMove(),
+                    plan.paymentsToMove(),
+                    plan.remissionsToMove(),
+                    plan.apportionmentsToMove());
+        }
+
+        private <E> List<E> get(Class<E> type) {
+            return rows.getOrDefault(type, List.of()).stream().map(type::cast).toList();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bounds for a case export: an inclusive CCD range and/or a service request creation window.
+ * Any bound may be null; at least one must be set.
+ */
+public record CaseExportCriteria(
+    String fromCcd,
+    String toCcd,
+    LocalDateTime createdFrom,
+    LocalDateTime createdTo
+) {
+    public boolean isBounded() {
+        return fromCcd != null || toCcd != null || createdFrom != null || createdTo != null;
+    }
+}
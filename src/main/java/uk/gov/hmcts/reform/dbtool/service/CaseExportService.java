@@ -0,0 +1,129 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import uk.gov.hmcts.reform.dbtool.domain.Case;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams cases as newline-delimited JSON.
+ * CCD numbers are read from payment_fee_link a page at a time with keyset pagination and each page is loaded
+ * as a batch, so memory use is bounded by the page size rather than the size of the export.
+ * No connection is held between pages, so concurrent exports leave the pool to the batch loads they make.
+ */
+@Service
+@Slf4j
+public class CaseExportService {
+
+    private final JdbcTemplate paymentJdbcTemplate;
+    private final CaseQueryService caseQueryService;
+    private final ObjectWriter caseWriter;
+    private final int chunkSize;
+
+    public CaseExportService(
+            @Qualifier("paymentJdbcTemplate") JdbcTemplate paymentJdbcTemplate,
+            CaseQueryService caseQueryService,
+            ObjectMapper objectMapper,
+            @Value("${dbtool.export.chunk-size:100}") int chunkSize) {
+        this.paymentJdbcTemplate = paymentJdbcTemplate;
+        this.caseQueryService = caseQueryService;
+        this.chunkSize = chunkSize;
+
+        this.caseWriter = objectMapper.writerFor(Case.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Write one case per line to the output stream, ordered by CCD case number.
+     *
+     * @return the number of cases written
+     */
+    public long exportNdjson(CaseExportCriteria criteria, OutputStream out) {
+        List<Object> filterArgs = new ArrayList<>();
+        String filter = buildCcdFilter(criteria, filterArgs);
+        log.info("Exporting cases for {}", criteria);
+
+        long written = 0;
+        String lastCcd = null;
+        while (true) {
+            List<String> page = nextPage(filter, filterArgs, lastCcd);
+            if (page.isEmpty()) {
+                break;
+            }
+            written += writeCases(page, out);
+            if (page.size() < chunkSize) {
+                break;
+            }
+            lastCcd = page.get(page.size() - 1);
+        }
+
+        log.info("Exported {} cases", written);
+        return written;
+    }
+
+    /**
+     * The next page of distinct CCD numbers after the last one written, served by the ccd_case_number index
+     */
+    private List<String> nextPage(String filter, List<Object> filterArgs, String lastCcd) {
+        StringBuilder sql = new StringBuilder("SELECT DISTINCT ccd_case_number FROM payment_fee_link WHERE ")
+                .append(filter);
+        List<Object> args = new ArrayList<>(filterArgs);
+        if (lastCcd != null) {
+            sql.append(" AND ccd_case_number > ?");
+            args.add(lastCcd);
+        }
+        sql.append(" ORDER BY ccd_case_number LIMIT ?");
+        args.add(chunkSize);
+        return paymentJdbcTemplate.queryForList(sql.toString(), String.class, args.toArray());
+    }
+
+    private String buildCcdFilter(CaseExportCriteria criteria, List<Object> args) {
+        StringBuilder sql = new StringBuilder("ccd_case_number IS NOT NULL");
+        if (criteria.fromCcd() != null) {
+            sql.append(" AND ccd_case_number >= ?");
+            args.add(criteria.fromCcd());
+        }
+        if (criteria.toCcd() != null) {
+            sql.append(" AND ccd_case_number <= ?");
+            args.add(criteria.toCcd());
+        }
+        if (criteria.createdFrom() != null) {
+            sql.append(" AND date_created >= ?");
+            args.add(Timestamp.valueOf(criteria.createdFrom()));
+        }
+        if (criteria.createdTo() != null) {
+            sql.append(" AND date_created < ?");
+            args.add(Timestamp.valueOf(criteria.createdTo()));
+        }
+        return sql.toString();
+    }
+
+    private long writeCases(List<String> ccdCaseNumbers, OutputStream out) {
+        long written = 0;
+        try {
+            for (Case c : caseQueryService.queryCasesByCcds(ccdCaseNumbers).cases()) {
+                caseWriter.writeValue(out, c);
+                out.write('\n');
+                written++;
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Case export aborted", e);
+        }
+        return written;
+    }
+}
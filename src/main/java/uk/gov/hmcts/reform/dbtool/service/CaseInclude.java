@@ -0,0 +1,40 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Entity sets that can be loaded with a case's service requests
+ */
+public enum CaseInclude {
+    FEES,
+    PAYMENTS,
+    REMISSIONS,
+    REFUNDS,
+    APPORTIONMENTS;
+
+    /**
+     * Every entity set: a full case
+     */
+    public static final Set<CaseInclude> ALL = Collections.unmodifiableSet(EnumSet.allOf(CaseInclude.class));
+
+    /**
+     * Resolve requested entity sets, adding the parents nested ones are attached to:
+     * remissions need fees, refunds and apportionments need payments. Nothing requested means everything.
+     */
+    public static Set<CaseInclude> resolve(Collection<CaseInclude> requested) {
+        if (requested == null || requested.isEmpty()) {
+            return ALL;
+        }
+        EnumSet<CaseInclude> include = EnumSet.copyOf(requested);
+        if (include.contains(REMISSIONS)) {
+            include.add(FEES);
+        }
+        if (include.contains(REFUNDS) || include.contains(APPORTIONMENTS)) {
+            include.add(PAYMENTS);
+        }
+        return include.equals(ALL) ? ALL : Collections.unmodifiableSet(include);
+    }
+}
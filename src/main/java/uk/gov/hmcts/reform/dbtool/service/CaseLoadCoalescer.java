@@ -0,0 +1,128 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.dbtool.domain.Case;
+import uk.gov.hmcts.reform.dbtool.domain.CaseVersion;
+import uk.gov.hmcts.reform.dbtool.timing.RequestTimings;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight case loads: concurrent requests for the same case share one load and its mapped result
+ * instead of each running the full set of queries.
+ *
+ * The first request for a key runs the load on its own thread; requests arriving while it is in flight
+ * wait for it and get the same cases, or the same exception. The key is removed before the result is
+ * published, so a request arriving after that starts a new load and nothing is served older than
+ * the load in flight when the request arrived. This complements the case cache, which only fills
+ * once a load has finished and is off in some deployments.
+ *
+ * Version reads, which every GET makes before it can answer 304 or look in the cache, are shared the same way
+ * under the case and include set, so a burst of requests for one case makes one version read rather than one each.
+ */
+@Component
+@Slf4j
+public class CaseLoadCoalescer {
+
+    static final String LOADS_COUNTER = "dbtool.case.loads";
+    static final String IN_FLIGHT_GAUGE = "dbtool.case.loads.in.flight";
+    static final String VERSION_READS_COUNTER = "dbtool.case.version.reads";
+
+    private final ConcurrentMap<Key, CompletableFuture<List<Case>>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<VersionKey, CompletableFuture<Optional<CaseVersion>>> versionsInFlight =
+            new ConcurrentHashMap<>();
+    private final Counter loaded;
+    private final Counter coalesced;
+    private final Counter versionsRead;
+    private final Counter versionsCoalesced;
+
+    @Value("${dbtool.query.coalesce-loads:true}")
+    private boolean enabled = true;
+
+    public CaseLoadCoalescer(MeterRegistry meterRegistry) {
+        this.loaded = Counter.builder(LOADS_COUNTER)
+                .description("Case load requests, by whether they joined a load already in flight")
+                .tag("coalesced", "false")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder(LOADS_COUNTER)
+                .description("Case load requests, by whether they joined a load already in flight")
+                .tag("coalesced", "true")
+                .register(meterRegistry);
+        this.versionsRead = Counter.builder(VERSION_READS_COUNTER)
+                .description("Case version reads, by whether they joined a read already in flight")
+                .tag("coalesced", "false")
+                .register(meterRegistry);
+        this.versionsCoalesced = Counter.builder(VERSION_READS_COUNTER)
+                .description("Case version reads, by whether they joined a read already in flight")
+                .tag("coalesced", "true")
+                .register(meterRegistry);
+        Gauge.builder(IN_FLIGHT_GAUGE, inFlight, ConcurrentMap::size)
+                .description("Distinct case loads in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Load a case, or wait for the identical load already in flight
+     */
+    public List<Case> load(Key key, Supplier<List<Case>> load) {
+        return singleFlight(inFlight, key, load, loaded, coalesced);
+    }
+
+    /**
+     * Read a case version, or wait for the read of the same version already in flight
+     */
+    public Optional<CaseVersion> readVersion(VersionKey key, Supplier<Optional<CaseVersion>> read) {
+        return singleFlight(versionsInFlight, key, read, versionsRead, versionsCoalesced);
+    }
+
+    private <K, T> T singleFlight(ConcurrentMap<K, CompletableFuture<T>> running, K key, Supplier<T> work,
+                                  Counter started, Counter joined) {
+        if (!enabled) {
+            started.increment();
+            return work.get();
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture<T> existing = running.putIfAbsent(key, result);
+        if (existing != null) {
+            joined.increment();
+            log.debug("Joining the work in flight for {}", key);
+            return RequestTimings.time(RequestTimings.Phase.COALESCED, () -> CaseQueryExecutor.join(existing));
+        }
+
+        started.increment();
+        try {
+            T value = work.get();
+            running.remove(key, result);
+            result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            running.remove(key, result);
+            result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * What makes two loads interchangeable: the case, how and what is loaded,
+     * and the version it is served under, if any, so a body is never sent with another load's entity tag
+     */
+    public record Key(String ccdCaseNumber, CaseLoadStrategy strategy, Set<CaseInclude> include, CaseVersion version) {
+    }
+
+    /**
+     * What makes two version reads interchangeable: the case and the entity sets the version covers
+     */
+    public record VersionKey(String ccdCaseNumber, Set<CaseInclude> include) {
+    }
+}
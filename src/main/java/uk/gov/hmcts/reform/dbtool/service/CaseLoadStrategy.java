@@ -0,0 +1,13 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+/**
+ * How case rows are loaded from the payments database
+ */
+public enum CaseLoadStrategy {
+    /** One JPA repository query per table, run concurrently */
+    JPA,
+    /** A single statement aggregating every table to JSON */
+    JSON,
+    /** One JdbcTemplate query per table selecting only the columns the case view needs, run concurrently */
+    JDBC
+}
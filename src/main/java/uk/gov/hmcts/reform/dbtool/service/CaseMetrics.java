@@ -0,0 +1,90 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.dbtool.domain.Case;
+import uk.gov.hmcts.reform.dbtool.domain.Fee;
+import uk.gov.hmcts.reform.dbtool.domain.Payment;
+import uk.gov.hmcts.reform.dbtool.domain.ServiceRequest;
+import uk.gov.hmcts.reform.dbtool.timing.RequestTimings;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the in-JVM work around case queries: mapping entities to cases, comparing patch requests,
+ * and the size of each case loaded. Query latency per database and table is in {@link CaseQueryExecutor}.
+ * Mapping and comparing are also recorded against the current request's {@link RequestTimings}.
+ */
+@Component
+@RequiredArgsConstructor
+public class CaseMetrics {
+
+    static final String MAP_TIMER = "dbtool.case.map";
+    static final String DIFF_TIMER = "dbtool.case.diff";
+    static final String ENTITY_SUMMARY = "dbtool.case.entities";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Time mapping loaded entities to cases, then record the size of each case
+     */
+    public List<Case> mapToDomain(Supplier<List<Case>> mapping) {
+        Timer timer = Timer.builder(MAP_TIMER)
+                .description("Time to map loaded entities to cases")
+                .register(meterRegistry);
+        List<Case> cases = RequestTimings.time(RequestTimings.Phase.MAP, () -> timer.record(mapping));
+        if (cases != null) {
+            cases.forEach(this::recordEntityCounts);
+        }
+        return cases;
+    }
+
+    /**
+     * Time planning a patch request's changes, including reading the case
+     */
+    public <T> T diff(CaseDiffStrategy strategy, Supplier<T> planning) {
+        Timer timer = Timer.builder(DIFF_TIMER)
+                .description("Time to compare a patch request with the database")
+                .tag("strategy", strategy.name().toLowerCase())
+                .register(meterRegistry);
+        return RequestTimings.time(RequestTimings.Phase.DIFF, () -> timer.record(planning));
+    }
+
+    private void recordEntityCounts(Case domainCase) {
+        int fees = 0;
+        int remissions = 0;
+        int payments = 0;
+        int refunds = 0;
+        int apportionments = 0;
+        for (ServiceRequest sr : domainCase.getServiceRequests()) {
+            fees += sr.fees().size();
+            for (Fee fee : sr.fees()) {
+                remissions += fee.remissions().size();
+            }
+            payments += sr.payments().size();
+            for (Payment payment : sr.payments()) {
+                refunds += payment.refunds().size();
+                apportionments += payment.apportionments().size();
+            }
+        }
+        record("service-requests", domainCase.getServiceRequests().size());
+        record("fees", fees);
+        record("remissions", remissions);
+        record("payments", payments);
+        record("refunds", refunds);
+        record("apportionments", apportionments);
+    }
+
+    private void record(String entity, int count) {
+        DistributionSummary.builder(ENTITY_SUMMARY)
+                .description("Rows of each entity in a loaded case")
+                .baseUnit("rows")
+                .tag("entity", entity)
+                .register(meterRegistry)
+                .record(count);
+    }
+}
@@ -0,0 +1,62 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.dbtool.timing.RequestTimings;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent database queries concurrently on the bounded case query executor
+ * and records the latency of each query, also against the submitting request's {@link RequestTimings}.
+ */
+@Component
+public class CaseQueryExecutor {
+
+    static final String QUERY_TIMER = "dbtool.case.query";
+
+    private final Executor executor;
+    private final MeterRegistry meterRegistry;
+
+    public CaseQueryExecutor(@Qualifier("caseQueryThreadPool") Executor executor, MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Submit a query for asynchronous execution.
+     *
+     * @param database the database queried (payments or refunds), used as a metric tag
+     * @param table    the table queried, used as a metric tag
+     */
+    public <T> CompletableFuture<T> submit(String database, String table, Supplier<T> query) {
+        Timer timer = Timer.builder(QUERY_TIMER)
+                .description("Latency of case queries")
+                .tag("database", database)
+                .tag("table", table)
+                .register(meterRegistry);
+        RequestTimings timings = RequestTimings.current();
+        RequestTimings.Phase phase = RequestTimings.Phase.database(database);
+        return CompletableFuture.supplyAsync(() -> RequestTimings.timeQuery(timings, phase, () -> timer.record(query)),
+                executor);
+    }
+
+    /**
+     * Wait for a query result, rethrowing the original exception if the query failed.
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -2,15 +2,28 @@ package uk.gov.hmcts.reform.dbtool.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import uk.gov.hmcts.reform.dbtool.database.*;
 import uk.gov.hmcts.reform.dbtool.domain.Case;
+import uk.gov.hmcts.reform.dbtool.domain.CaseBatchResult;
+import uk.gov.hmcts.reform.dbtool.domain.CaseSummary;
+import uk.gov.hmcts.reform.dbtool.domain.CaseVersion;
 import uk.gov.hmcts.reform.dbtool.mapper.CaseMapper;
 import uk.gov.hmcts.reform.dbtool.repository.*;
+import uk.gov.hmcts.reform.dbtool.service.CaseRefundLoader.RefundQueries;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static uk.gov.hmcts.reform.dbtool.service.CaseQueryExecutor.join;
 
 /**
  * Service for querying case data from both databases
@@ -20,40 +33,246 @@ import java.util.stream.Collectors;
 @Slf4j
 public class CaseQueryService {
 
+    /**
+     * Cache of assembled cases keyed by CCD case number
+     */
+    public static final String CASE_CACHE = "cases";
+
     private final PaymentFeeLinkRepository paymentFeeLinkRepository;
     private final FeeRepository feeRepository;
     private final PaymentRepository paymentRepository;
     private final RefundRepository refundRepository;
     private final RemissionRepository remissionRepository;
     private final ApportionmentRepository apportionmentRepository;
+    private final CaseJsonRepository caseJsonRepository;
+    private final CaseProjectionRepository caseProjectionRepository;
+    private final CaseSummaryRepository caseSummaryRepository;
+    private final CaseVersionRepository caseVersionRepository;
     private final CaseMapper caseMapper;
+    private final CaseQueryExecutor queryExecutor;
+    private final CaseRefundLoader caseRefundLoader;
+    private final CaseMetrics caseMetrics;
+    private final CaseLoadCoalescer caseLoadCoalescer;
+
+    @Value("${dbtool.query.loader:jpa}")
+    private CaseLoadStrategy defaultLoadStrategy = CaseLoadStrategy.JPA;
+
+    @Value("${dbtool.query.batch-chunk-size:500}")
+    private int batchChunkSize = 500;
+
+    /**
+     * Query a case at a known version from both databases, loading only the included entity sets.
+     * Not transactional: each query runs in its own read-only transaction
+     * so the fan-out can use one pooled connection per query.
+     *
+     * Results are cached unless a load strategy is requested explicitly, so strategies can be compared.
+     * The version and the entity sets are part of the cache key, so an entry cached before the case
+     * changed is never served under the new version's entity tag, nor a partial case for a fuller request.
+     * Concurrent requests share one load on the same terms.
+     *
+     * @param loadStrategy how to load the payments database rows, or null for the configured default
+     * @param include entity sets to load, already {@link CaseInclude#resolve resolved}
+     */
+    @Cacheable(cacheNames = CASE_CACHE, key = "#ccdCaseNumber + ';' + #version.etag() + ';' + #include",
+            condition = "#loadStrategy == null", unless = "#result.isEmpty()")
+    public List<Case> queryCaseByCcd(String ccdCaseNumber, CaseLoadStrategy loadStrategy, CaseVersion version,
+                                     Set<CaseInclude> include) {
+        return loadCase(ccdCaseNumber, loadStrategy, version, include);
+    }
+
+    /**
+     * Read the version of a case with aggregate queries, or empty if the case has no service requests
+     */
+    public Optional<CaseVersion> findCaseVersion(String ccdCaseNumber) {
+        return caseVersionRepository.findCaseVersion(ccdCaseNumber);
+    }
 
     /**
-     * Query all data for a CCD case number from both databases
+     * Read the version of a case loaded with only the included entity sets.
+     * Skips the refunds database unless refunds are included; a partial case gets its own version.
+     * Concurrent reads of the same case and include set share one read.
      */
-    @Transactional(readOnly = true)
-    public List<Case> queryCaseByCcd(String ccdCaseNumber) {
-        log.info("Querying case data for CCD: {}", ccdCaseNumber);
-
-        // Fetch all data directly by CCD in parallel
-        List<PaymentFeeLinkEntity> links = paymentFeeLinkRepository.findByCcdCaseNumber(ccdCaseNumber);
-        List<FeeEntity> fees = feeRepository.findByCcdCaseNumber(ccdCaseNumber);
-        List<PaymentEntity> payments = paymentRepository.findByCcdCaseNumber(ccdCaseNumber);
-        List<RemissionEntity> remissions = remissionRepository.findByCcdCaseNumber(ccdCaseNumber);
-        List<ApportionmentEntity> apportionments = apportionmentRepository.findByCcdCaseNumber(ccdCaseNumber);
-
-        // Fetch refunds from refunds database
-        List<String> paymentReferences = payments.stream()
-                .map(PaymentEntity::getReference)
-                .collect(Collectors.toList());
-        List<RefundEntity> refunds = paymentReferences.isEmpty() ?
-                List.of() : refundRepository.findByPaymentReferenceIn(paymentReferences);
+    public Optional<CaseVersion> findCaseVersion(String ccdCaseNumber, Set<CaseInclude> include) {
+        return caseLoadCoalescer.readVersion(new CaseLoadCoalescer.VersionKey(ccdCaseNumber, include),
+                () -> readCaseVersion(ccdCaseNumber, include));
+    }
+
+    private Optional<CaseVersion> readCaseVersion(String ccdCaseNumber, Set<CaseInclude> include) {
+        if (include.equals(CaseInclude.ALL)) {
+            return findCaseVersion(ccdCaseNumber);
+        }
+        return caseVersionRepository.findCaseVersion(ccdCaseNumber, include.contains(CaseInclude.REFUNDS))
+                .map(version -> new CaseVersion(version.fingerprint() + ";" + include));
+    }
+
+    private List<Case> loadCase(String ccdCaseNumber, CaseLoadStrategy loadStrategy, CaseVersion version,
+                                Set<CaseInclude> include) {
+        CaseLoadStrategy strategy = loadStrategy != null ? loadStrategy : defaultLoadStrategy;
+        return caseLoadCoalescer.load(new CaseLoadCoalescer.Key(ccdCaseNumber, strategy, include, version),
+                () -> queryAndMap(ccdCaseNumber, strategy, include));
+    }
+
+    private List<Case> queryAndMap(String ccdCaseNumber, CaseLoadStrategy strategy, Set<CaseInclude> include) {
+        log.info("Querying case data for CCD: {} ({}, {})", ccdCaseNumber, strategy, include);
+
+        CaseSnapshot snapshot = switch (strategy) {
+            case JSON -> loadWithJsonAggregate(ccdCaseNumber, include);
+            case JDBC -> loadWithProjections(List.of(ccdCaseNumber), include);
+            case JPA -> loadWithRepositories(ccdCaseNumber, include);
+        };
 
         log.info("Found {} links, {} fees, {} payments, {} refunds, {} remissions, {} apportionments",
-                links.size(), fees.size(), payments.size(), refunds.size(),
-                remissions.size(), apportionments.size());
+                snapshot.links().size(), snapshot.fees().size(), snapshot.payments().size(),
+                snapshot.refunds().size(), snapshot.remissions().size(), snapshot.apportionments().size());
 
         // Map to domain model
-        return caseMapper.mapToDomain(links, fees, payments, refunds, remissions, apportionments);
+        return caseMetrics.mapToDomain(() -> caseMapper.mapToDomain(snapshot.links(), snapshot.fees(),
+                snapshot.payments(), snapshot.refunds(), snapshot.remissions(), snapshot.apportionments()));
+    }
+
+    /**
+     * Summarise a case with one aggregate query per database, without loading its rows.
+     * Returns empty if the case has no service requests.
+     */
+    public Optional<CaseSummary> summarizeCase(String ccdCaseNumber) {
+        log.info("Summarising case data for CCD: {}", ccdCaseNumber);
+        return caseSummaryRepository.summarizeCase(ccdCaseNumber);
+    }
+
+    /**
+     * Query many CCD case numbers with a handful of IN queries per chunk instead of a full load per CCD.
+     * Cases are returned in request order; duplicate and blank CCD numbers are ignored.
+     * The configured loader picks the queries: jdbc and json use the projection queries, since the json
+     * aggregate only reads a single CCD, and jpa uses the repositories.
+     */
+    public CaseBatchResult queryCasesByCcds(List<String> ccdCaseNumbers) {
+        List<String> distinctCcds = ccdCaseNumbers.stream().distinct().toList();
+        log.info("Querying case data for {} CCDs in chunks of {}", distinctCcds.size(), batchChunkSize);
+
+        Map<String, Case> casesByCcd = new HashMap<>();
+        for (int from = 0; from < distinctCcds.size(); from += batchChunkSize) {
+            List<String> chunk = distinctCcds.subList(from, Math.min(from + batchChunkSize, distinctCcds.size()));
+            CaseSnapshot snapshot = switch (defaultLoadStrategy) {
+                case JDBC, JSON -> loadWithProjections(chunk, CaseInclude.ALL);
+                case JPA -> loadBatchWithRepositories(chunk);
+            };
+            caseMetrics.mapToDomain(() -> caseMapper.mapToDomain(snapshot.links(), snapshot.fees(),
+                            snapshot.payments(), snapshot.refunds(), snapshot.remissions(), snapshot.apportionments()))
+                    .forEach(c -> casesByCcd.put(c.getCcdCaseNumber(), c));
+        }
+
+        List<Case> cases = new ArrayList<>();
+        List<String> notFound = new ArrayList<>();
+        for (String ccd : distinctCcds) {
+            Case found = casesByCcd.get(ccd);
+            if (found != null) {
+                cases.add(found);
+            } else {
+                notFound.add(ccd);
+            }
+        }
+        log.info("Found {} of {} CCDs", cases.size(), distinctCcds.size());
+        return new CaseBatchResult(cases, notFound);
+    }
+
+    private CaseSnapshot loadWithRepositories(String ccdCaseNumber, Set<CaseInclude> include) {
+        return fanOut(
+                () -> paymentFeeLinkRepository.findByCcdCaseNumber(ccdCaseNumber),
+                () -> feeRepository.findByCcdCaseNumber(ccdCaseNumber),
+                () -> paymentRepository.findByCcdCaseNumber(ccdCaseNumber),
+                () -> remissionRepository.findByCcdCaseNumber(ccdCaseNumber),
+                () -> apportionmentRepository.findByCcdCaseNumber(ccdCaseNumber),
+                List.of(ccdCaseNumber), jpaRefundQueries(), include);
+    }
+
+    private CaseSnapshot loadBatchWithRepositories(List<String> ccdCaseNumbers) {
+        return fanOut(
+                () -> paymentFeeLinkRepository.findByCcdCaseNumberIn(ccdCaseNumbers),
+                () -> feeRepository.findByCcdCaseNumberIn(ccdCaseNumbers),
+                () -> paymentRepository.findByCcdCaseNumberIn(ccdCaseNumbers),
+                () -> remissionRepository.findByCcdCaseNumberIn(ccdCaseNumbers),
+                () -> apportionmentRepository.findByCcdCaseNumberIn(ccdCaseNumbers),
+                ccdCaseNumbers, jpaRefundQueries(), CaseInclude.ALL);
+    }
+
+    private CaseSnapshot loadWithProjections(List<String> ccdCaseNumbers, Set<CaseInclude> include) {
+        return fanOut(
+                () -> caseProjectionRepository.findLinksByCcdCaseNumberIn(ccdCaseNumbers),
+                () -> caseProjectionRepository.findFeesByCcdCaseNumberIn(ccdCaseNumbers),
+                () -> caseProjectionRepository.findPaymentsByCcdCaseNumberIn(ccdCaseNumbers),
+                () -> caseProjectionRepository.findRemissionsByCcdCaseNumberIn(ccdCaseNumbers),
+                () -> caseProjectionRepository.findApportionmentsByCcdCaseNumberIn(ccdCaseNumbers),
+                ccdCaseNumbers, new RefundQueries(
+                        caseProjectionRepository::findRefundsByPaymentReferenceIn,
+                        caseProjectionRepository::findRefundsByCcdCaseNumberIn,
+                        caseProjectionRepository::findOrphanRefundsByPaymentReferenceIn), include);
+    }
+
+    private RefundQueries jpaRefundQueries() {
+        return new RefundQueries(
+                refundRepository::findByPaymentReferenceIn,
+                refundRepository::findByCcdCaseNumberIn,
+                refundRepository::findOrphansByPaymentReferenceIn);
+    }
+
+    private CaseSnapshot fanOut(
+            Supplier<List<PaymentFeeLinkEntity>> linksQuery,
+            Supplier<List<FeeEntity>> feesQuery,
+            Supplier<List<PaymentEntity>> paymentsQuery,
+            Supplier<List<RemissionEntity>> remissionsQuery,
+            Supplier<List<ApportionmentEntity>> apportionmentsQuery,
+            List<String> ccdCaseNumbers,
+            RefundQueries refundQueries,
+            Set<CaseInclude> include) {
+        // Fetch the included payments database tables in parallel
+        CompletableFuture<List<PaymentFeeLinkEntity>> linksFuture =
+                queryExecutor.submit("payments", "payment_fee_link", linksQuery);
+        CompletableFuture<List<FeeEntity>> feesFuture =
+                submitIncluded(include, CaseInclude.FEES, "fee", feesQuery);
+        CompletableFuture<List<PaymentEntity>> paymentsFuture =
+                submitIncluded(include, CaseInclude.PAYMENTS, "payment", paymentsQuery);
+        CompletableFuture<List<RemissionEntity>> remissionsFuture =
+                submitIncluded(include, CaseInclude.REMISSIONS, "remission", remissionsQuery);
+        CompletableFuture<List<ApportionmentEntity>> apportionmentsFuture =
+                submitIncluded(include, CaseInclude.APPORTIONMENTS, "fee_pay_apportion", apportionmentsQuery);
+        CompletableFuture<List<RefundEntity>> refundsFuture = include.contains(CaseInclude.REFUNDS) ?
+                caseRefundLoader.fetchRefunds(ccdCaseNumbers, paymentsFuture, refundQueries) :
+                CompletableFuture.completedFuture(List.of());
+
+        return new CaseSnapshot(
+                join(linksFuture),
+                join(feesFuture),
+                join(paymentsFuture),
+                join(refundsFuture),
+                join(remissionsFuture),
+                join(apportionmentsFuture));
+    }
+
+    private <T> CompletableFuture<List<T>> submitIncluded(
+            Set<CaseInclude> include, CaseInclude entitySet, String table, Supplier<List<T>> query) {
+        return include.contains(entitySet) ?
+                queryExecutor.submit("payments", table, query) : CompletableFuture.completedFuture(List.of());
+    }
+
+    private CaseSnapshot loadWithJsonAggregate(String ccdCaseNumber, Set<CaseInclude> include) {
+        // One round-trip for all payments database tables; excluded entity sets are dropped after it
+        CompletableFuture<CaseSnapshot> paymentsDbFuture = queryExecutor.submit("payments", "case_json",
+                () -> caseJsonRepository.findByCcdCaseNumber(ccdCaseNumber));
+        CompletableFuture<List<RefundEntity>> refundsFuture = include.contains(CaseInclude.REFUNDS) ?
+                caseRefundLoader.fetchRefunds(List.of(ccdCaseNumber),
+                        paymentsDbFuture.thenApply(CaseSnapshot::payments), jpaRefundQueries()) :
+                CompletableFuture.completedFuture(List.of());
+
+        CaseSnapshot snapshot = join(paymentsDbFuture).withRefunds(join(refundsFuture));
+        if (include.equals(CaseInclude.ALL)) {
+            return snapshot;
+        }
+        return new CaseSnapshot(
+                snapshot.links(),
+                include.contains(CaseInclude.FEES) ? snapshot.fees() : List.of(),
+                include.contains(CaseInclude.PAYMENTS) ? snapshot.payments() : List.of(),
+                snapshot.refunds(),
+                include.contains(CaseInclude.REMISSIONS) ? snapshot.remissions() : List.of(),
+                include.contains(CaseInclude.APPORTIONMENTS) ? snapshot.apportionments() : List.of());
     }
 }
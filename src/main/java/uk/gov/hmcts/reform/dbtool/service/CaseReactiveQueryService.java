@@ -0,0 +1,164 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import uk.gov.hmcts.reform.dbtool.database.PaymentEntity;
+import uk.gov.hmcts.reform.dbtool.database.RefundEntity;
+import uk.gov.hmcts.reform.dbtool.domain.Case;
+import uk.gov.hmcts.reform.dbtool.mapper.CaseMapper;
+import uk.gov.hmcts.reform.dbtool.repository.CaseReactiveRepository;
+import uk.gov.hmcts.reform.dbtool.timing.RequestTimings;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Non-blocking case queries over R2DBC, for the reactive read path.
+ * Composes the same projection queries as the jdbc loader without a thread waiting on any of them:
+ * the payments database tables are queried concurrently, refunds follow the configured lookup
+ * as in {@link CaseRefundLoader}, and the rows are mapped once the last query completes.
+ * Cases are not cached, and there is no load strategy or include choice on this path.
+ */
+@Service
+@ConditionalOnProperty(name = "dbtool.r2dbc.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class CaseReactiveQueryService {
+
+    private final CaseReactiveRepository caseReactiveRepository;
+    private final CaseMapper caseMapper;
+    private final CaseMetrics caseMetrics;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${dbtool.query.refund-lookup:payment-reference}")
+    private RefundLookup refundLookup = RefundLookup.PAYMENT_REFERENCE;
+
+    @Value("${dbtool.query.refund-orphans:true}")
+    private boolean refundOrphans = true;
+
+    @Value("${dbtool.query.batch-chunk-size:500}")
+    private int batchChunkSize = 500;
+
+    /**
+     * Query all data for a CCD case number from both databases.
+     * Nothing runs until the result is subscribed to; call on the request thread so the queries are
+     * recorded against its {@link RequestTimings}.
+     */
+    public Mono<List<Case>> queryCaseByCcd(String ccdCaseNumber) {
+        log.info("Querying case data for CCD: {} (r2dbc)", ccdCaseNumber);
+        RequestTimings timings = RequestTimings.current();
+        List<String> ccdCaseNumbers = List.of(ccdCaseNumber);
+
+        // Refunds are derived from the payments, so their query is shared rather than run twice
+        Mono<List<PaymentEntity>> payments = timed(timings, "payments", "payment",
+                caseReactiveRepository.findPaymentsByCcdCaseNumberIn(ccdCaseNumbers)).cache();
+        return Mono.zip(
+                        timed(timings, "payments", "payment_fee_link",
+                                caseReactiveRepository.findLinksByCcdCaseNumberIn(ccdCaseNumbers)),
+                        timed(timings, "payments", "fee",
+                                caseReactiveRepository.findFeesByCcdCaseNumberIn(ccdCaseNumbers)),
+                        payments,
+                        fetchRefunds(timings, ccdCaseNumbers, payments),
+                        timed(timings, "payments", "remission",
+                                caseReactiveRepository.findRemissionsByCcdCaseNumberIn(ccdCaseNumbers)),
+                        timed(timings, "payments", "fee_pay_apportion",
+                                caseReactiveRepository.findApportionmentsByCcdCaseNumberIn(ccdCaseNumbers)))
+                .map(rows -> {
+                    log.info("Found {} links, {} fees, {} payments, {} refunds, {} remissions, {} apportionments",
+                            rows.getT1().size(), rows.getT2().size(), rows.getT3().size(),
+                            rows.getT4().size(), rows.getT5().size(), rows.getT6().size());
+                    return RequestTimings.timeQuery(timings, RequestTimings.Phase.MAP,
+                            () -> caseMetrics.mapToDomain(() -> caseMapper.mapToDomain(rows.getT1(), rows.getT2(),
+                                    rows.getT3(), rows.getT4(), rows.getT5(), rows.getT6())));
+                });
+    }
+
+    /**
+     * Refunds for the case's payments, with the same lookups as {@link CaseRefundLoader#fetchRefunds}
+     */
+    private Mono<List<RefundEntity>> fetchRefunds(RequestTimings timings, List<String> ccdCaseNumbers,
+                                                  Mono<List<PaymentEntity>> payments) {
+        if (refundLookup == RefundLookup.PAYMENT_REFERENCE) {
+            return payments.flatMap(loaded -> chunked(timings, paymentReferences(loaded),
+                    caseReactiveRepository::findRefundsByPaymentReferenceIn));
+        }
+
+        Mono<List<RefundEntity>> byCcd = chunked(timings, ccdCaseNumbers,
+                caseReactiveRepository::findRefundsByCcdCaseNumberIn);
+        return Mono.zip(byCcd, payments).flatMap(found -> {
+            List<String> paymentReferences = paymentReferences(found.getT2());
+            Set<String> references = new HashSet<>(paymentReferences);
+            List<RefundEntity> reconciled = found.getT1().stream()
+                    .filter(refund -> references.contains(refund.getPaymentReference()))
+                    .toList();
+            if (!refundOrphans || paymentReferences.isEmpty()) {
+                return Mono.just(reconciled);
+            }
+            // The orphan query excludes the requested CCDs, so it never repeats a refund found by CCD
+            return chunked(timings, paymentReferences,
+                    chunk -> caseReactiveRepository.findOrphanRefundsByPaymentReferenceIn(chunk, ccdCaseNumbers))
+                    .map(orphaned -> Stream.concat(reconciled.stream(), orphaned.stream()).toList());
+        });
+    }
+
+    private static List<String> paymentReferences(List<PaymentEntity> payments) {
+        return payments.stream()
+                .map(PaymentEntity::getReference)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Run a refunds query over the values in chunks of at most the batch chunk size, concurrently
+     */
+    private Mono<List<RefundEntity>> chunked(RequestTimings timings, List<String> values,
+                                             Function<List<String>, Mono<List<RefundEntity>>> query) {
+        if (values.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += batchChunkSize) {
+            chunks.add(values.subList(from, Math.min(from + batchChunkSize, values.size())));
+        }
+        return Flux.fromIterable(chunks)
+                .flatMapSequential(chunk -> timed(timings, "refunds", "refunds", query.apply(chunk)))
+                .flatMapIterable(Function.identity())
+                .collectList();
+    }
+
+    /**
+     * Record a query's latency with the same timer as {@link CaseQueryExecutor}, and against the request.
+     * Timed from subscription, when the query is sent, to its last row.
+     */
+    private <T> Mono<T> timed(RequestTimings timings, String database, String table, Mono<T> query) {
+        Timer timer = Timer.builder(CaseQueryExecutor.QUERY_TIMER)
+                .description("Latency of case queries")
+                .tag("database", database)
+                .tag("table", table)
+                .register(meterRegistry);
+        RequestTimings.Phase phase = RequestTimings.Phase.database(database);
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return query.doOnTerminate(() -> {
+                long elapsed = System.nanoTime() - started;
+                timer.record(elapsed, TimeUnit.NANOSECONDS);
+                if (timings != null) {
+                    timings.record(phase, elapsed);
+                }
+            });
+        });
+    }
+}
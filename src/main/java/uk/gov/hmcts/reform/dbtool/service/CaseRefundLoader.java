@@ -0,0 +1,125 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.dbtool.database.PaymentEntity;
+import uk.gov.hmcts.reform.dbtool.database.RefundEntity;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Loads the refunds for a case's payments from the refunds database.
+ *
+ * With the ccd lookup the refunds query does not wait for the payments database: refunds are read by
+ * CCD case number straight away and kept if their payment reference belongs to one of the case's payments.
+ * Refunds recorded without a CCD case number, or under another one, are only found by the orphan query,
+ * which runs by payment reference once the payments have loaded.
+ */
+@Component
+@RequiredArgsConstructor
+public class CaseRefundLoader {
+
+    private final CaseQueryExecutor queryExecutor;
+
+    @Value("${dbtool.query.refund-lookup:payment-reference}")
+    private RefundLookup refundLookup = RefundLookup.PAYMENT_REFERENCE;
+
+    @Value("${dbtool.query.refund-orphans:true}")
+    private boolean refundOrphans = true;
+
+    @Value("${dbtool.query.batch-chunk-size:500}")
+    private int batchChunkSize = 500;
+
+    /**
+     * Fetch refunds for the payments of the given cases, looking up orphaned refunds if configured to
+     */
+    public CompletableFuture<List<RefundEntity>> fetchRefunds(
+            List<String> ccdCaseNumbers,
+            CompletableFuture<List<PaymentEntity>> paymentsFuture,
+            RefundQueries queries) {
+        return fetchRefunds(ccdCaseNumbers, paymentsFuture, queries, refundOrphans);
+    }
+
+    /**
+     * Fetch refunds for the payments of the given cases.
+     * Call before waiting on the payments so the ccd lookup can overlap with them.
+     *
+     * @param includeOrphans with the ccd lookup, also find refunds on the case's payments
+     *                       whose CCD case number is missing or belongs to another case
+     */
+    public CompletableFuture<List<RefundEntity>> fetchRefunds(
+            List<String> ccdCaseNumbers,
+            CompletableFuture<List<PaymentEntity>> paymentsFuture,
+            RefundQueries queries,
+            boolean includeOrphans) {
+        if (refundLookup == RefundLookup.PAYMENT_REFERENCE) {
+            return paymentsFuture.thenCompose(payments ->
+                    submitChunked(paymentReferences(payments), queries.byPaymentReference()));
+        }
+
+        CompletableFuture<List<RefundEntity>> byCcdFuture =
+                submitChunked(ccdCaseNumbers, queries.byCcdCaseNumber());
+        return paymentsFuture.thenCompose(payments -> {
+            List<String> paymentReferences = paymentReferences(payments);
+            Set<String> references = new HashSet<>(paymentReferences);
+            CompletableFuture<List<RefundEntity>> reconciled = byCcdFuture.thenApply(refunds -> refunds.stream()
+                    .filter(refund -> references.contains(refund.getPaymentReference()))
+                    .toList());
+            if (!includeOrphans || paymentReferences.isEmpty()) {
+                return reconciled;
+            }
+            // The orphan query excludes the requested CCDs, so it never repeats a refund found by CCD
+            CompletableFuture<List<RefundEntity>> orphans = submitChunked(paymentReferences,
+                    chunk -> queries.orphansByPaymentReference().apply(chunk, ccdCaseNumbers));
+            return reconciled.thenCombine(orphans,
+                    (byCcd, orphaned) -> Stream.concat(byCcd.stream(), orphaned.stream()).toList());
+        });
+    }
+
+    private static List<String> paymentReferences(List<PaymentEntity> payments) {
+        return payments.stream()
+                .map(PaymentEntity::getReference)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Run a refunds query over the values, split into chunks so no single IN list grows unbounded
+     */
+    private CompletableFuture<List<RefundEntity>> submitChunked(
+            List<String> values, Function<List<String>, List<RefundEntity>> query) {
+        if (values.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        if (values.size() <= batchChunkSize) {
+            return queryExecutor.submit("refunds", "refunds", () -> query.apply(values));
+        }
+        List<CompletableFuture<List<RefundEntity>>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += batchChunkSize) {
+            List<String> chunk = values.subList(from, Math.min(from + batchChunkSize, values.size()));
+            chunks.add(queryExecutor.submit("refunds", "refunds", () -> query.apply(chunk)));
+        }
+        return CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new))
+                .thenApply(done -> chunks.stream()
+                        .flatMap(chunk -> chunk.join().stream())
+                        .toList());
+    }
+
+    /**
+     * The refunds queries for one way of reading rows, JPA entities or JDBC projections
+     *
+     * @param orphansByPaymentReference refunds with the given payment references
+     *                                  whose CCD case number is null or not one of the given CCDs
+     */
+    public record RefundQueries(
+        Function<List<String>, List<RefundEntity>> byPaymentReference,
+        Function<List<String>, List<RefundEntity>> byCcdCaseNumber,
+        BiFunction<List<String>, List<String>, List<RefundEntity>> orphansByPaymentReference
+    ) {
+    }
+}
@@ -0,0 +1,140 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import uk.gov.hmcts.reform.dbtool.database.*;
+import uk.gov.hmcts.reform.dbtool.domain.SqlGenerationResult;
+import uk.gov.hmcts.reform.dbtool.service.CaseChangePlan.Move;
+import uk.gov.hmcts.reform.dbtool.sql.SqlTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import static uk.gov.hmcts.reform.dbtool.sql.CaseSqlTemplates.*;
+
+/**
+ * Renders a change plan as SQL scripts for the payments and refunds databases.
+ * Moves run before deletes, and deletes run children first: apportionments, remissions, refunds,
+ * fees, payments, then links. Rollback reverses the moves, then re-inserts parents before children.
+ *
+ * Statements are handed to a sink as they are rendered, tagged with their {@link SqlScript},
+ * so a caller can stream one script without holding the others.
+ */
+final class CaseSqlRenderer {
+
+    /**
+     * Upper bound on ids or rows carried by one set-based statement
+     */
+    static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private final SqlOutputMode mode;
+    private final BiConsumer<SqlScript, String> sink;
+    private final StringBuilder buffer = new StringBuilder(512);
+
+    private CaseSqlRenderer(SqlOutputMode mode, BiConsumer<SqlScript, String> sink) {
+        this.mode = mode;
+        this.sink = sink;
+    }
+
+    static SqlGenerationResult render(CaseChangePlan plan, SqlOutputMode mode) {
+        Map<SqlScript, List<String>> scripts = new EnumMap<>(SqlScript.class);
+        for (SqlScript script : SqlScript.values()) {
+            scripts.put(script, new ArrayList<>());
+        }
+        render(plan, mode, (script, statement) -> scripts.get(script).add(statement));
+        return new SqlGenerationResult(scripts.get(SqlScript.PAYMENTS), scripts.get(SqlScript.REFUNDS),
+                scripts.get(SqlScript.PAYMENTS_ROLLBACK), scripts.get(SqlScript.REFUNDS_ROLLBACK), plan.summary());
+    }
+
+    /**
+     * Hand each statement to the sink as soon as it is rendered; statements of one script arrive in order
+     */
+    static void render(CaseChangePlan plan, SqlOutputMode mode, BiConsumer<SqlScript, String> sink) {
+        new CaseSqlRenderer(mode, sink).render(plan);
+    }
+
+    private void render(CaseChangePlan plan) {
+        // 1. Moves, children first
+        moves("fee_pay_apportion", plan.apportionmentsToMove());
+        moves("remission", plan.remissionsToMove());
+        moves("fee", plan.feesToMove());
+        moves("payment", plan.paymentsToMove());
+
+        // 2. Deletes in dependency order (children first, then parents)
+        deletes(SqlScript.PAYMENTS, "fee_pay_apportion", plan.apportionmentsToDelete(), ApportionmentEntity::getId);
+        deletes(SqlScript.PAYMENTS, "remission", plan.remissionsToDelete(), RemissionEntity::getId);
+        deletes(SqlScript.REFUNDS, "refunds", plan.refundsToDelete(), RefundEntity::getId);
+        deletes(SqlScript.PAYMENTS, "fee", plan.feesToDelete(), FeeEntity::getId);
+        deletes(SqlScript.PAYMENTS, "payment", plan.paymentsToDelete(), PaymentEntity::getId);
+        deletes(SqlScript.PAYMENTS, "payment_fee_link", plan.linksToDelete(), PaymentFeeLinkEntity::getId);
+
+        // 3. Rollback inserts for deleted rows (parents first, children last)
+        inserts(SqlScript.PAYMENTS_ROLLBACK, PAYMENT_FEE_LINK_INSERT, plan.linksToDelete());
+        inserts(SqlScript.PAYMENTS_ROLLBACK, PAYMENT_INSERT, plan.paymentsToDelete());
+        inserts(SqlScript.PAYMENTS_ROLLBACK, FEE_INSERT, plan.feesToDelete());
+        inserts(SqlScript.REFUNDS_ROLLBACK, REFUND_INSERT, plan.refundsToDelete());
+        inserts(SqlScript.PAYMENTS_ROLLBACK, REMISSION_INSERT, plan.remissionsToDelete());
+        inserts(SqlScript.PAYMENTS_ROLLBACK, APPORTIONMENT_INSERT, plan.apportionmentsToDelete());
+    }
+
+    private void moves(String table, List<Move> moves) {
+        if (mode == SqlOutputMode.PER_ROW) {
+            for (Move move : moves) {
+                sink.accept(SqlScript.PAYMENTS,
+                        update(buffer, table, "id", move.id(), "payment_link_id", move.toLinkId()));
+                sink.accept(SqlScript.PAYMENTS_ROLLBACK,
+                        update(buffer, table, "id", move.id(), "payment_link_id", move.fromLinkId()));
+            }
+            return;
+        }
+        groupedUpdates(SqlScript.PAYMENTS, table, moves, Move::toLinkId);
+        groupedUpdates(SqlScript.PAYMENTS_ROLLBACK, table, moves, Move::fromLinkId);
+    }
+
+    private void groupedUpdates(SqlScript script, String table, List<Move> moves, Function<Move, Long> linkId) {
+        Map<Long, List<Long>> idsByLink = new LinkedHashMap<>();
+        for (Move move : moves) {
+            idsByLink.computeIfAbsent(linkId.apply(move), link -> new ArrayList<>()).add(move.id());
+        }
+        idsByLink.forEach((link, ids) -> {
+            for (List<Long> chunk : chunks(ids)) {
+                sink.accept(script, updateAny(buffer, table, "id", chunk, "payment_link_id", link));
+            }
+        });
+    }
+
+    private <T> void deletes(SqlScript script, String table, List<T> rows, Function<T, Long> id) {
+        if (mode == SqlOutputMode.PER_ROW) {
+            for (T row : rows) {
+                sink.accept(script, delete(buffer, table, "id", id.apply(row)));
+            }
+            return;
+        }
+        for (List<T> chunk : chunks(rows)) {
+            sink.accept(script, deleteIn(buffer, table, "id", chunk.stream().map(id).toList()));
+        }
+    }
+
+    private <T> void inserts(SqlScript script, SqlTemplate<T> template, List<T> rows) {
+        if (mode == SqlOutputMode.PER_ROW) {
+            for (T row : rows) {
+                sink.accept(script, template.render(buffer, row));
+            }
+            return;
+        }
+        for (List<T> chunk : chunks(rows)) {
+            sink.accept(script, template.renderRows(buffer, chunk));
+        }
+    }
+
+    private static <T> List<List<T>> chunks(List<T> rows) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_STATEMENT) {
+            chunks.add(rows.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, rows.size())));
+        }
+        return chunks;
+    }
+}
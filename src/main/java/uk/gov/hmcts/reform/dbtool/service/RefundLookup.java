@@ -0,0 +1,11 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+/**
+ * How a case's refunds are found in the refunds database
+ */
+public enum RefundLookup {
+    /** Query by the case's payment references, once the payments have loaded */
+    PAYMENT_REFERENCE,
+    /** Query by CCD case number alongside the payments database queries, then match by payment reference */
+    CCD
+}
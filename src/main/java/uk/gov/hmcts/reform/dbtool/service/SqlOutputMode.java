@@ -0,0 +1,11 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+/**
+ * How generated SQL is grouped into statements
+ */
+public enum SqlOutputMode {
+    /** One DELETE or UPDATE per row and one INSERT per rollback row */
+    PER_ROW,
+    /** One DELETE per table, one UPDATE per target link and multi-row rollback INSERTs */
+    SET_BASED
+}
@@ -0,0 +1,22 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+/**
+ * One of the four scripts generated for a patch request
+ */
+public enum SqlScript {
+    /** Moves and deletes for the payments database */
+    PAYMENTS,
+    /** Deletes for the refunds database */
+    REFUNDS,
+    /** Reverses PAYMENTS: moves back, then re-inserts deleted rows */
+    PAYMENTS_ROLLBACK,
+    /** Reverses REFUNDS */
+    REFUNDS_ROLLBACK;
+
+    /**
+     * Rollback scripts re-insert deleted rows, so they need every column of them
+     */
+    public boolean isRollback() {
+        return this == PAYMENTS_ROLLBACK || this == REFUNDS_ROLLBACK;
+    }
+}
@@ -0,0 +1,197 @@
+package uk.gov.hmcts.reform.dbtool.sql;
+
+import uk.gov.hmcts.reform.dbtool.database.*;
+
+import java.util.List;
+
+import static uk.gov.hmcts.reform.dbtool.sql.SqlValue.*;
+
+/**
+ * Statements generated for case deletions, moves and their rollback scripts
+ */
+public final class CaseSqlTemplates {
+
+    public static final SqlTemplate<PaymentFeeLinkEntity> PAYMENT_FEE_LINK_INSERT = SqlTemplate.compile(
+            "INSERT INTO payment_fee_link (id, date_created, date_updated, payment_reference, org_id, "
+            + "enterprise_service_name, ccd_case_number, case_reference, service_request_callback_url) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?);",
+            id(PaymentFeeLinkEntity::getId),
+            timestamp(PaymentFeeLinkEntity::getDateCreated),
+            timestamp(PaymentFeeLinkEntity::getDateUpdated),
+            string(PaymentFeeLinkEntity::getPaymentReference),
+            string(PaymentFeeLinkEntity::getOrgId),
+            string(PaymentFeeLinkEntity::getEnterpriseServiceName),
+            string(PaymentFeeLinkEntity::getCcdCaseNumber),
+            string(PaymentFeeLinkEntity::getCaseReference),
+            string(PaymentFeeLinkEntity::getServiceRequestCallbackUrl));
+
+    public static final SqlTemplate<FeeEntity> FEE_INSERT = SqlTemplate.compile(
+            "INSERT INTO fee (id, code, version, payment_link_id, calculated_amount, volume, ccd_case_number, "
+            + "reference, net_amount, fee_amount, amount_due, date_created, date_updated) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);",
+            id(FeeEntity::getId),
+            string(FeeEntity::getCode),
+            string(FeeEntity::getVersion),
+            longValue(FeeEntity::getPaymentLinkId),
+            decimal(FeeEntity::getCalculatedAmount),
+            integer(FeeEntity::getVolume),
+            string(FeeEntity::getCcdCaseNumber),
+            string(FeeEntity::getReference),
+            decimal(FeeEntity::getNetAmount),
+            decimal(FeeEntity::getFeeAmount),
+            decimal(FeeEntity::getAmountDue),
+            timestamp(FeeEntity::getDateCreated),
+            timestamp(FeeEntity::getDateUpdated));
+
+    public static final SqlTemplate<PaymentEntity> PAYMENT_INSERT = SqlTemplate.compile(
+            "INSERT INTO payment (id, amount, case_reference, ccd_case_number, currency, date_created, date_updated, "
+            + "description, service_type, site_id, user_id, payment_channel, payment_method, payment_provider, "
+            + "payment_status, payment_link_id, customer_reference, external_reference, organisation_name, "
+            + "pba_number, reference, giro_slip_no, s2s_service_name, reported_date_offline, service_callback_url, "
+            + "document_control_number, banked_date, payer_name, internal_reference) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);",
+            id(PaymentEntity::getId),
+            decimal(PaymentEntity::getAmount),
+            string(PaymentEntity::getCaseReference),
+            string(PaymentEntity::getCcdCaseNumber),
+            string(PaymentEntity::getCurrency),
+            timestamp(PaymentEntity::getDateCreated),
+            timestamp(PaymentEntity::getDateUpdated),
+            string(PaymentEntity::getDescription),
+            string(PaymentEntity::getServiceType),
+            string(PaymentEntity::getSiteId),
+            string(PaymentEntity::getUserId),
+            string(PaymentEntity::getPaymentChannel),
+            string(PaymentEntity::getPaymentMethod),
+            string(PaymentEntity::getPaymentProvider),
+            string(PaymentEntity::getPaymentStatus),
+            longValue(PaymentEntity::getPaymentLinkId),
+            string(PaymentEntity::getCustomerReference),
+            string(PaymentEntity::getExternalReference),
+            string(PaymentEntity::getOrganisationName),
+            string(PaymentEntity::getPbaNumber),
+            string(PaymentEntity::getReference),
+            string(PaymentEntity::getGiroSlipNo),
+            string(PaymentEntity::getS2sServiceName),
+            timestamp(PaymentEntity::getReportedDateOffline),
+            string(PaymentEntity::getServiceCallbackUrl),
+            string(PaymentEntity::getDocumentControlNumber),
+            timestamp(PaymentEntity::getBankedDate),
+            string(PaymentEntity::getPayerName),
+            string(PaymentEntity::getInternalReference));
+
+    public static final SqlTemplate<RemissionEntity> REMISSION_INSERT = SqlTemplate.compile(
+            "INSERT INTO remission (id, fee_id, hwf_reference, hwf_amount, beneficiary_name, ccd_case_number, "
+            + "case_reference, payment_link_id, site_id, date_created, date_updated, remission_reference) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);",
+            id(RemissionEntity::getId),
+            longValue(RemissionEntity::getFeeId),
+            string(RemissionEntity::getHwfReference),
+            decimal(RemissionEntity::getHwfAmount),
+            string(RemissionEntity::getBeneficiaryName),
+            string(RemissionEntity::getCcdCaseNumber),
+            string(RemissionEntity::getCaseReference),
+            longValue(RemissionEntity::getPaymentLinkId),
+            string(RemissionEntity::getSiteId),
+            timestamp(RemissionEntity::getDateCreated),
+            timestamp(RemissionEntity::getDateUpdated),
+            string(RemissionEntity::getRemissionReference));
+
+    public static final SqlTemplate<ApportionmentEntity> APPORTIONMENT_INSERT = SqlTemplate.compile(
+            "INSERT INTO fee_pay_apportion (id, payment_id, fee_id, payment_link_id, fee_amount, payment_amount, "
+            + "apportion_amount, ccd_case_number, apportion_type, call_surplus_amount, created_by, date_created, date_updated) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);",
+            id(ApportionmentEntity::getId),
+            longValue(ApportionmentEntity::getPaymentId),
+            longValue(ApportionmentEntity::getFeeId),
+            longValue(ApportionmentEntity::getPaymentLinkId),
+            decimal(ApportionmentEntity::getFeeAmount),
+            decimal(ApportionmentEntity::getPaymentAmount),
+            decimal(ApportionmentEntity::getApportionAmount),
+            string(ApportionmentEntity::getCcdCaseNumber),
+            string(ApportionmentEntity::getApportionType),
+            decimal(ApportionmentEntity::getCallSurplusAmount),
+            string(ApportionmentEntity::getCreatedBy),
+            timestamp(ApportionmentEntity::getDateCreated),
+            timestamp(ApportionmentEntity::getDateUpdated));
+
+    public static final SqlTemplate<RefundEntity> REFUND_INSERT = SqlTemplate.compile(
+            "INSERT INTO refunds (id, date_created, date_updated, amount, reason, refund_status, reference, "
+            + "payment_reference, created_by, updated_by, ccd_case_number, fee_ids, notification_sent_flag, "
+            + "contact_details, service_type, refund_instruction_type) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);",
+            id(RefundEntity::getId),
+            timestamp(RefundEntity::getDateCreated),
+            timestamp(RefundEntity::getDateUpdated),
+            decimal(RefundEntity::getAmount),
+            string(RefundEntity::getReason),
+            string(RefundEntity::getRefundStatus),
+            string(RefundEntity::getReference),
+            string(RefundEntity::getPaymentReference),
+            string(RefundEntity::getCreatedBy),
+            string(RefundEntity::getUpdatedBy),
+            string(RefundEntity::getCcdCaseNumber),
+            string(RefundEntity::getFeeIds),
+            string(RefundEntity::getNotificationSentFlag),
+            string(RefundEntity::getContactDetails),
+            string(RefundEntity::getServiceType),
+            string(RefundEntity::getRefundInstructionType));
+
+    private CaseSqlTemplates() {
+    }
+
+    /**
+     * {@code DELETE FROM <table> WHERE <idColumn> = <id>;}
+     */
+    public static String delete(StringBuilder buffer, String tableName, String idColumn, Long id) {
+        buffer.setLength(0);
+        buffer.append("DELETE FROM ").append(tableName).append(" WHERE ").append(idColumn).append(" = ");
+        SqlLiterals.appendId(buffer, id);
+        return buffer.append(';').toString();
+    }
+
+    /**
+     * {@code UPDATE <table> SET <updateColumn> = <newValue> WHERE <idColumn> = <id>;}
+     */
+    public static String update(StringBuilder buffer, String tableName, String idColumn, Long id,
+                                String updateColumn, Long newValue) {
+        buffer.setLength(0);
+        buffer.append("UPDATE ").append(tableName).append(" SET ").append(updateColumn).append(" = ");
+        SqlLiterals.appendId(buffer, newValue);
+        buffer.append(" WHERE ").append(idColumn).append(" = ");
+        SqlLiterals.appendId(buffer, id);
+        return buffer.append(';').toString();
+    }
+
+    /**
+     * {@code DELETE FROM <table> WHERE <idColumn> IN (<ids>);}
+     */
+    public static String deleteIn(StringBuilder buffer, String tableName, String idColumn, List<Long> ids) {
+        buffer.setLength(0);
+        buffer.append("DELETE FROM ").append(tableName).append(" WHERE ").append(idColumn).append(" IN (");
+        appendIds(buffer, ids);
+        return buffer.append(");").toString();
+    }
+
+    /**
+     * {@code UPDATE <table> SET <updateColumn> = <newValue> WHERE <idColumn> = ANY(ARRAY[<ids>]);}
+     */
+    public static String updateAny(StringBuilder buffer, String tableName, String idColumn, List<Long> ids,
+                                   String updateColumn, Long newValue) {
+        buffer.setLength(0);
+        buffer.append("UPDATE ").append(tableName).append(" SET ").append(updateColumn).append(" = ");
+        SqlLiterals.appendId(buffer, newValue);
+        buffer.append(" WHERE ").append(idColumn).append(" = ANY(ARRAY[");
+        appendIds(buffer, ids);
+        return buffer.append("]);").toString();
+    }
+
+    private static void appendIds(StringBuilder sql, List<Long> ids) {
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            SqlLiterals.appendId(sql, ids.get(i));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package uk.gov.hmcts.reform.dbtool.sql;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Appends SQL literals straight into a StringBuilder without intermediate strings.
+ * Output matches LocalDateTime.toString with the 'T' replaced by a space, and strings quoted
+ * with embedded quotes doubled.
+ */
+public final class SqlLiterals {
+
+    static final String NULL = "NULL";
+
+    private SqlLiterals() {
+    }
+
+    public static void appendString(StringBuilder sql, String value) {
+        if (value == null) {
+            sql.append(NULL);
+            return;
+        }
+        sql.append('\'');
+        int start = 0;
+        for (int i = value.indexOf('\''); i >= 0; i = value.indexOf('\'', start)) {
+            sql.append(value, start, i + 1).append('\'');
+            start = i + 1;
+        }
+        sql.append(value, start, value.length()).append('\'');
+    }
+
+    /**
+     * Identifiers keep String.format's %d rendering, so a missing id is lower-case {@code null}
+     */
+    public static void appendId(StringBuilder sql, Long value) {
+        if (value == null) {
+            sql.append("null");
+        } else {
+            sql.append(value.longValue());
+        }
+    }
+
+    public static void appendLong(StringBuilder sql, Long value) {
+        if (value == null) {
+            sql.append(NULL);
+        } else {
+            sql.append(value.longValue());
+        }
+    }
+
+    public static void appendInteger(StringBuilder sql, Integer value) {
+        if (value == null) {
+            sql.append(NULL);
+        } else {
+            sql.append(value.intValue());
+        }
+    }
+
+    public static void appendDecimal(StringBuilder sql, BigDecimal value) {
+        sql.append(value == null ? NULL : value.toPlainString());
+    }
+
+    public static void appendTimestamp(StringBuilder sql, LocalDateTime value) {
+        if (value == null) {
+            sql.append(NULL);
+            return;
+        }
+        sql.append('\'');
+        int year = value.getYear();
+        if (year >= 0 && year <= 9999) {
+            appendPadded(sql, year, 4);
+            sql.append('-');
+            appendPadded(sql, value.getMonthValue(), 2);
+            sql.append('-');
+            appendPadded(sql, value.getDayOfMonth(), 2);
+        } else {
+            // Signed and five digit years are vanishingly rare; defer to the JDK for them
+            sql.append(value.toLocalDate());
+        }
+        sql.append(' ');
+        appendPadded(sql, value.getHour(), 2);
+        sql.append(':');
+        appendPadded(sql, value.getMinute(), 2);
+        int second = value.getSecond();
+        int nano = value.getNano();
+        if (second > 0 || nano > 0) {
+            sql.append(':');
+            appendPadded(sql, second, 2);
+            if (nano > 0) {
+                // Same precision steps as LocalTime.toString: millis, micros or nanos
+                sql.append('.');
+                if (nano % 1_000_000 == 0) {
+                    appendPadded(sql, nano / 1_000_000, 3);
+                } else if (nano % 1_000 == 0) {
+                    appendPadded(sql, nano / 1_000, 6);
+                } else {
+                    appendPadded(sql, nano, 9);
+                }
+            }
+        }
+        sql.append('\'');
+    }
+
+    private static void appendPadded(StringBuilder sql, int value, int width) {
+        for (int limit = 10, digits = 1; digits < width; limit *= 10, digits++) {
+            if (value < limit) {
+                sql.append('0');
+            }
+        }
+        sql.append(value);
+    }
+}
@@ -0,0 +1,104 @@
+package uk.gov.hmcts.reform.dbtool.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A statement shape parsed once, with a {@code ?} marking each column value.
+ * Rendering appends the fixed fragments and the row's literals into a caller-supplied StringBuilder,
+ * so a whole script can be generated with one buffer and no format-string parsing per row.
+ */
+public final class SqlTemplate<T> {
+
+    private static final String VALUES = "VALUES ";
+
+    private final String[] fragments;
+    private final SqlValue<T>[] values;
+
+    // Multi-row INSERT parts, or null when the statement is not a single VALUES tuple
+    private final String insertHead;
+    private final String tupleOpen;
+    private final String tupleClose;
+
+    private SqlTemplate(String[] fragments, SqlValue<T>[] values) {
+        this.fragments = fragments;
+        this.values = values;
+
+        String first = fragments[0];
+        String last = fragments[fragments.length - 1];
+        int valuesAt = first.lastIndexOf(VALUES + "(");
+        if (values.length > 0 && valuesAt >= 0 && last.endsWith(");")) {
+            this.insertHead = first.substring(0, valuesAt + VALUES.length());
+            this.tupleOpen = first.substring(valuesAt + VALUES.length());
+            this.tupleClose = last.substring(0, last.length() - 1);
+        } else {
+            this.insertHead = null;
+            this.tupleOpen = null;
+            this.tupleClose = null;
+        }
+    }
+
+    @SafeVarargs
+    public static <T> SqlTemplate<T> compile(String statement, SqlValue<T>... values) {
+        List<String> fragments = new ArrayList<>();
+        int start = 0;
+        for (int i = statement.indexOf('?'); i >= 0; i = statement.indexOf('?', start)) {
+            fragments.add(statement.substring(start, i));
+            start = i + 1;
+        }
+        fragments.add(statement.substring(start));
+        if (fragments.size() != values.length + 1) {
+            throw new IllegalArgumentException("Statement has " + (fragments.size() - 1)
+                    + " placeholders but " + values.length + " values: " + statement);
+        }
+        return new SqlTemplate<>(fragments.toArray(String[]::new), values.clone());
+    }
+
+    /**
+     * Append the statement for a row to the end of the buffer
+     */
+    public void appendTo(StringBuilder sql, T row) {
+        for (int i = 0; i < values.length; i++) {
+            sql.append(fragments[i]);
+            values[i].appendTo(sql, row);
+        }
+        sql.append(fragments[values.length]);
+    }
+
+    /**
+     * Render the statement for a row, reusing the buffer's capacity
+     */
+    public String render(StringBuilder buffer, T row) {
+        buffer.setLength(0);
+        appendTo(buffer, row);
+        return buffer.toString();
+    }
+
+    /**
+     * Render a single INSERT carrying every row: {@code INSERT ... VALUES (...), (...);}
+     *
+     * @throws IllegalStateException if the statement does not end with one VALUES tuple
+     */
+    public String renderRows(StringBuilder buffer, List<? extends T> rows) {
+        if (insertHead == null) {
+            throw new IllegalStateException("Not a single-row INSERT: " + String.join("?", fragments));
+        }
+        buffer.setLength(0);
+        buffer.append(insertHead);
+        for (int r = 0; r < rows.size(); r++) {
+            if (r > 0) {
+                buffer.append(", ");
+            }
+            T row = rows.get(r);
+            buffer.append(tupleOpen);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    buffer.append(fragments[i]);
+                }
+                values[i].appendTo(buffer, row);
+            }
+            buffer.append(tupleClose);
+        }
+        return buffer.append(';').toString();
+    }
+}
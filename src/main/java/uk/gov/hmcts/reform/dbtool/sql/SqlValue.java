@@ -0,0 +1,41 @@
+package uk.gov.hmcts.reform.dbtool.sql;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * One column value of a {@link SqlTemplate}, appended as a SQL literal
+ */
+@FunctionalInterface
+public interface SqlValue<T> {
+
+    void appendTo(StringBuilder sql, T row);
+
+    /**
+     * An identifier column, written as by {@link SqlLiterals#appendId}
+     */
+    static <T> SqlValue<T> id(Function<T, Long> getter) {
+        return (sql, row) -> SqlLiterals.appendId(sql, getter.apply(row));
+    }
+
+    static <T> SqlValue<T> string(Function<T, String> getter) {
+        return (sql, row) -> SqlLiterals.appendString(sql, getter.apply(row));
+    }
+
+    static <T> SqlValue<T> longValue(Function<T, Long> getter) {
+        return (sql, row) -> SqlLiterals.appendLong(sql, getter.apply(row));
+    }
+
+    static <T> SqlValue<T> integer(Function<T, Integer> getter) {
+        return (sql, row) -> SqlLiterals.appendInteger(sql, getter.apply(row));
+    }
+
+    static <T> SqlValue<T> decimal(Function<T, BigDecimal> getter) {
+        return (sql, row) -> SqlLiterals.appendDecimal(sql, getter.apply(row));
+    }
+
+    static <T> SqlValue<T> timestamp(Function<T, LocalDateTime> getter) {
+        return (sql, row) -> SqlLiterals.appendTimestamp(sql, getter.apply(row));
+    }
+}
@@ -0,0 +1,190 @@
+package uk.gov.hmcts.reform.dbtool.timing;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Time spent in each phase of one request, reported by {@link ServerTimingFilter}.
+ * The filter binds an instance to the request thread; recording with nothing bound is a no-op,
+ * so callers record unconditionally. Phases can overlap: the payments and refunds queries of a request
+ * run concurrently, and diff includes the reads it makes.
+ */
+public final class RequestTimings {
+
+    public enum Phase {
+        PAYMENTS_DB("payments-db"),
+        REFUNDS_DB("refunds-db"),
+        // Waiting for another request's load of the same case
+        COALESCED("coalesced"),
+        MAP("map"),
+        SUMMARY("summary"),
+        DIFF("diff"),
+        SERIALIZE("serialize");
+
+        private final String metricName;
+
+        Phase(String metricName) {
+            this.metricName = metricName;
+        }
+
+        public String metricName() {
+            return metricName;
+        }
+
+        /**
+         * The phase for queries on a database, named as in the query metric tags (payments or refunds)
+         */
+        public static Phase database(String database) {
+            return "refunds".equals(database) ? REFUNDS_DB : PAYMENTS_DB;
+        }
+    }
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long start;
+    // Indexed by phase ordinal; queries record from the case query threads
+    private final AtomicLongArray nanos = new AtomicLongArray(PHASES.length);
+    private final AtomicLongArray counts = new AtomicLongArray(PHASES.length);
+
+    RequestTimings(long start) {
+        this.start = start;
+    }
+
+    /**
+     * Start timing a request on the current thread
+     */
+    public static RequestTimings bind() {
+        RequestTimings timings = new RequestTimings(System.nanoTime());
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Continue timing a request on the current thread, such as on its async dispatch
+     */
+    static RequestTimings bind(RequestTimings timings) {
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * The timings of the request on the current thread, or null outside a timed request
+     */
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Time work on the current thread against the request bound to it, if any
+     */
+    public static <T> T time(Phase phase, Supplier<T> work) {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null) {
+            return work.get();
+        }
+        long started = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            timings.record(phase, System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Time a query against the request that submitted it, on whichever thread runs it.
+     * The request is unbound while the query runs, so repository calls inside it are not counted twice
+     * when the query runs on the request thread.
+     */
+    public static <T> T timeQuery(RequestTimings timings, Phase phase, Supplier<T> query) {
+        if (timings == null) {
+            return query.get();
+        }
+        RequestTimings bound = CURRENT.get();
+        CURRENT.remove();
+        long started = System.nanoTime();
+        try {
+            return query.get();
+        } finally {
+            timings.record(phase, System.nanoTime() - started);
+            if (bound != null) {
+                CURRENT.set(bound);
+            }
+        }
+    }
+
+    /**
+     * Record elapsed time against the request on the current thread, if any
+     */
+    public static void recordCurrent(Phase phase, long elapsedNanos) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.record(phase, elapsedNanos);
+        }
+    }
+
+    public void record(Phase phase, long elapsedNanos) {
+        nanos.addAndGet(phase.ordinal(), elapsedNanos);
+        counts.incrementAndGet(phase.ordinal());
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - start;
+    }
+
+    long nanos(Phase phase) {
+        return nanos.get(phase.ordinal());
+    }
+
+    long count(Phase phase) {
+        return counts.get(phase.ordinal());
+    }
+
+    /**
+     * Server-Timing header value: each recorded phase with its total duration in milliseconds
+     * and, when it ran more than once, the number of calls; then the time since the request started.
+     */
+    public String serverTiming() {
+        StringBuilder header = new StringBuilder(160);
+        for (Phase phase : PHASES) {
+            long count = count(phase);
+            if (count == 0) {
+                continue;
+            }
+            header.append(phase.metricName()).append(";dur=").append(millis(nanos(phase)));
+            if (count > 1) {
+                header.append(";desc=\"").append(count).append(" calls\"");
+            }
+            header.append(", ");
+        }
+        return header.append("total;dur=").append(millis(elapsedNanos())).toString();
+    }
+
+    /**
+     * Key=value fields for the slow request log line, total first
+     */
+    public String logFields() {
+        StringBuilder fields = new StringBuilder(160).append("total_ms=").append(millis(elapsedNanos()));
+        for (Phase phase : PHASES) {
+            long count = count(phase);
+            if (count == 0) {
+                continue;
+            }
+            String key = phase.metricName().replace('-', '_');
+            fields.append(' ').append(key).append("_ms=").append(millis(nanos(phase)))
+                    .append(' ').append(key).append("_calls=").append(count);
+        }
+        return fields.toString();
+    }
+
+    /**
+     * Milliseconds to one decimal place
+     */
+    private static double millis(long nanos) {
+        return (nanos / 100_000) / 10.0;
+    }
+}
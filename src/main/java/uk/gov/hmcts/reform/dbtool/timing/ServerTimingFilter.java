@@ -0,0 +1,120 @@
+package uk.gov.hmcts.reform.dbtool.timing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+
+/**
+ * Times each request, adds a Server-Timing header with the per-phase breakdown
+ * and logs requests slower than the threshold.
+ *
+ * The header is added just before the response body is opened, which is after serialization for JSON
+ * (see {@link ServerTimingJsonConverter}) and before the first byte for streamed responses,
+ * so a stream's total covers the time to its first byte. A zero threshold logs every request.
+ * An async request keeps its timings across dispatches and is logged when the last one ends.
+ */
+@Slf4j
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    private static final String TIMINGS_ATTRIBUTE = ServerTimingFilter.class.getName() + ".timings";
+
+    private final Duration slowRequestThreshold;
+
+    public ServerTimingFilter(Duration slowRequestThreshold) {
+        this.slowRequestThreshold = slowRequestThreshold;
+    }
+
+    /**
+     * Async requests, such as the reactive endpoint's, finish on an async dispatch
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTimings timings = request.getAttribute(TIMINGS_ATTRIBUTE) instanceof RequestTimings started ?
+                RequestTimings.bind(started) : RequestTimings.bind();
+        ServerTimingResponse timedResponse = new ServerTimingResponse(response, timings);
+        try {
+            chain.doFilter(request, timedResponse);
+        } finally {
+            RequestTimings.unbind();
+            if (request.isAsyncStarted()) {
+                // Finished by the async dispatch; a stream opened before then still gets the header first
+                request.setAttribute(TIMINGS_ATTRIBUTE, timings);
+            } else {
+                // Responses without a body, such as 304 and 404, are still open here
+                timedResponse.addServerTiming();
+                if (timings.elapsedNanos() >= slowRequestThreshold.toNanos()) {
+                    log.warn("Slow request method={} uri={} status={} {}", request.getMethod(),
+                            request.getRequestURI(), response.getStatus(), timings.logFields());
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the header before anything can commit the response
+     */
+    private static class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final RequestTimings timings;
+        private boolean added;
+
+        ServerTimingResponse(HttpServletResponse response, RequestTimings timings) {
+            super(response);
+            this.timings = timings;
+        }
+
+        void addServerTiming() {
+            if (!added && !isCommitted()) {
+                added = true;
+                setHeader(SERVER_TIMING, timings.serverTiming());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addServerTiming();
+            super.sendError(sc);
+        }
+    }
+}
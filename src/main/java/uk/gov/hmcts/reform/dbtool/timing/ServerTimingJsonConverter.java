@@ -0,0 +1,105 @@
+package uk.gov.hmcts.reform.dbtool.timing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * JSON converter that, within a timed request, serializes to a buffer first so the serialization time
+ * is known before the response body, and with it the Server-Timing header, is opened.
+ * A body that outgrows the buffer limit is not held in memory: what is buffered is written out and the rest
+ * streams straight to the response, so its header goes without serialize, which still reaches the slow request log.
+ * Outside a timed request it writes straight to the response.
+ */
+public class ServerTimingJsonConverter extends MappingJackson2HttpMessageConverter {
+
+    private final int bufferLimit;
+
+    public ServerTimingJsonConverter(ObjectMapper objectMapper, int bufferLimit) {
+        super(objectMapper);
+        this.bufferLimit = bufferLimit;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        RequestTimings timings = RequestTimings.current();
+        if (timings == null) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+
+        LimitedBuffer buffer = new LimitedBuffer(outputMessage, bufferLimit);
+        long started = System.nanoTime();
+        super.writeInternal(object, type, new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return buffer;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return outputMessage.getHeaders();
+            }
+        });
+        timings.record(RequestTimings.Phase.SERIALIZE, System.nanoTime() - started);
+        buffer.writeBuffered();
+    }
+
+    /**
+     * Buffers up to the limit, then opens the response body and passes every later write through
+     */
+    private static final class LimitedBuffer extends OutputStream {
+
+        private final HttpOutputMessage outputMessage;
+        private final int limit;
+        private final ByteArrayOutputStream buffer;
+        private OutputStream body;
+
+        LimitedBuffer(HttpOutputMessage outputMessage, int limit) {
+            this.outputMessage = outputMessage;
+            this.limit = limit;
+            this.buffer = new ByteArrayOutputStream(Math.min(8192, Math.max(limit, 32)));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target(1).write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            target(length).write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (body != null) {
+                body.flush();
+            }
+        }
+
+        /**
+         * Write out a body that stayed within the limit; one that outgrew it has been written already
+         */
+        void writeBuffered() throws IOException {
+            if (body == null) {
+                buffer.writeTo(outputMessage.getBody());
+            }
+        }
+
+        private OutputStream target(int length) throws IOException {
+            if (body == null && buffer.size() + length > limit) {
+                body = outputMessage.getBody();
+                buffer.writeTo(body);
+                buffer.reset();
+            }
+            return body != null ? body : buffer;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package uk.gov.hmcts.reform.dbtool.domain;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -217,4 +218,23 @@ class DomainModelTest {
         assertEquals("Service", sr.enterpriseServiceName());
         assertEquals("http://callback", sr.serviceRequestCallbackUrl());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCaseVersion_weakEtagStableForSameFingerprint() {
+        CaseVersion version = new CaseVersion("1000000000000001;1/2024-01-15 10:30:00");
+
+        assertTrue(version.etag().matches("W/\"[0-9a-f]{32}\""));
+        assertEquals(version.etag(), new CaseVersion("1000000000000001;1/2024-01-15 10:30:00").etag());
+        assertNotEquals(version.etag(), new CaseVersion("1000000000000001;2/2024-01-15 10:30:00").etag());
+    }
+
+    @Test
+    void testCaseBatchRequest_dropsNullAndBlankCcdNumbers() {
+        CaseBatchRequest request = new CaseBatchRequest(
+            Arrays.asList("1000000000000001", null, " ", "1000000000000002"));
+
+        assertEquals(List.of("1000000000000001", "1000000000000002"), request.ccdCaseNumbers());
+        assertTrue(new CaseBatchRequest(Arrays.asList(null, "")).ccdCaseNumbers().isEmpty());
+        assertTrue(new CaseBatchRequest(null).ccdCaseNumbers().isEmpty());
+    }
+}
@@ -45,10 +45,19 @@ public abstract class BaseIT {
         registry.add("spring.datasource.refunds.username", refundsDb::getUsername);
         registry.add("spring.datasource.refunds.password", refundsDb::getPassword);
 
+        // R2DBC pools for the reactive read path, when a test enables it
+        registry.add("spring.r2dbc.payment.url", () -> r2dbcUrl(paymentsDb));
+        registry.add("spring.r2dbc.refunds.url", () -> r2dbcUrl(refundsDb));
+
         // Liquibase context for test data
         registry.add("liquibase.contexts", () -> "test");
     }
 
+    private static String r2dbcUrl(PostgreSQLContainer<?> container) {
+        return "r2dbc:postgresql://" + container.getHost() + ":" + container.getFirstMappedPort()
+                + "/" + container.getDatabaseName();
+    }
+
     @BeforeEach
     void setUp() {
         RestAssured.port = port;
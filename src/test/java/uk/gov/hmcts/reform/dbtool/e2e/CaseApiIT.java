@@ -1,17 +1,31 @@
 package uk.gov.hmcts.reform.dbtool.e2e;
 
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 /**
  * Integration tests for the Case API using RestAssured and Testcontainers.
  */
 class CaseApiIT extends BaseIT {
 
+    @Autowired
+    @Qualifier("paymentJdbcTemplate")
+    private JdbcTemplate paymentJdbcTemplate;
+
+    @Autowired
+    @Qualifier("refundsJdbcTemplate")
+    private JdbcTemplate refundsJdbcTemplate;
+
     @Nested
     @DisplayName("GET /api/cases/ccd/{ccdCaseNumber}")
     class GetCaseByCcd {
@@ -132,6 +146,22 @@ class CaseApiIT extends BaseIT {
                     .body("case.serviceRequests[0].payments[0].apportionments[0].apportionAmount", equalTo("100.00"))
                     .body("case.serviceRequests[0].payments[0].apportionments[0].apportionType", equalTo("AUTO"));
         }
+
+        @Test
+        @DisplayName("should return the same case with the single-query JSON loader")
+        void shouldReturnCaseWithJsonLoader() {
+            given()
+                .queryParam("loader", "json")
+                .when()
+                    .get("/cases/ccd/1000000000000004")
+                .then()
+                    .statusCode(200)
+                    .body("case.ccdCaseNumber", equalTo("1000000000000004"))
+                    .body("case.serviceRequests[0].fees[0].amount", equalTo("300.00"))
+                    .body("case.serviceRequests[0].payments[0].refunds", hasSize(1))
+                    .body("case.serviceRequests[0].payments[0].refunds[0].reference", equalTo("RF-TEST-0001"))
+                    .body("summary.totalRefunds", equalTo(50));
+        }
     }
 
     @Nested
@@ -185,6 +215,105 @@ class CaseApiIT extends BaseIT {
         }
     }
 
+    @Nested
+    @DisplayName("POST /api/cases/batch")
+    class GetCasesByCcds {
+
+        @Test
+        @DisplayName("should return found cases in request order and list missing CCDs")
+        void shouldReturnCasesInRequestOrder() {
+            given()
+                .contentType(ContentType.JSON)
+                .body("""
+                    {"ccdCaseNumbers": ["1000000000000004", "9999999999999999", "1000000000000001"]}
+                    """)
+                .when()
+                    .post("/cases/batch")
+                .then()
+                    .statusCode(200)
+                    .body("cases", hasSize(2))
+                    .body("cases[0].ccdCaseNumber", equalTo("1000000000000004"))
+                    .body("cases[0].serviceRequests[0].payments[0].refunds", hasSize(1))
+                    .body("cases[1].ccdCaseNumber", equalTo("1000000000000001"))
+                    .body("notFound", contains("9999999999999999"));
+        }
+
+        @Test
+        @DisplayName("should reject an empty batch")
+        void shouldRejectEmptyBatch() {
+            given()
+                .contentType(ContentType.JSON)
+                .body("{\"ccdCaseNumbers\": []}")
+                .when()
+                    .post("/cases/batch")
+                .then()
+                    .statusCode(400);
+        }
+
+        @Test
+        @DisplayName("should skip null and blank CCD numbers")
+        void shouldSkipNullAndBlankCcds() {
+            given()
+                .contentType(ContentType.JSON)
+                .body("""
+                    {"ccdCaseNumbers": ["1000000000000001", null, ""]}
+                    """)
+                .when()
+                    .post("/cases/batch")
+                .then()
+                    .statusCode(200)
+                    .body("cases", hasSize(1))
+                    .body("cases[0].ccdCaseNumber", equalTo("1000000000000001"))
+                    .body("notFound", hasSize(0));
+        }
+
+        @Test
+        @DisplayName("should reject a batch of only null CCD numbers")
+        void shouldRejectNullOnlyBatch() {
+            given()
+                .contentType(ContentType.JSON)
+                .body("{\"ccdCaseNumbers\": [null]}")
+                .when()
+                    .post("/cases/batch")
+                .then()
+                    .statusCode(400);
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/cases/export")
+    class ExportCases {
+
+        @Test
+        @DisplayName("should stream one case per line for a CCD range")
+        void shouldStreamCasesAsNdjson() {
+            String body = given()
+                .queryParam("fromCcd", "1000000000000001")
+                .queryParam("toCcd", "1000000000000002")
+                .when()
+                    .get("/cases/export")
+                .then()
+                    .statusCode(200)
+                    .contentType("application/x-ndjson")
+                    .extract().asString();
+
+            String[] lines = body.split("\n");
+            org.junit.jupiter.api.Assertions.assertEquals(2, lines.length);
+            org.junit.jupiter.api.Assertions.assertTrue(lines[0].contains("\"ccdCaseNumber\":\"1000000000000001\""));
+            org.junit.jupiter.api.Assertions.assertTrue(lines[1].contains("\"ccdCaseNumber\":\"1000000000000002\""));
+        }
+
+        @Test
+        @DisplayName("should reject an unbounded export")
+        void shouldRejectUnboundedExport() {
+            given()
+                .when()
+                    .get("/cases/export")
+                .then()
+                    .statusCode(400);
+        }
+    }
+
     @Nested
     @DisplayName("Response structure validation")
     class ResponseStructure {
@@ -221,4 +350,116 @@ class CaseApiIT extends BaseIT {
                     .body("case.serviceRequests[0].enterpriseServiceName", notNullValue());
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Server-Timing header")
+    class ServerTiming {
+
+        @Test
+        @DisplayName("should break a case load down by phase")
+        void shouldTimeCaseLoad() {
+            given()
+                .when()
+                    .get("/cases/ccd/1000000000000001")
+                .then()
+                    .statusCode(200)
+                    .header("Server-Timing", allOf(containsString("payments-db;dur="),
+                            containsString("map;dur="), containsString("summary;dur="),
+                            containsString("serialize;dur="), containsString("total;dur=")));
+        }
+
+        @Test
+        @DisplayName("should time a response without a body")
+        void shouldTimeNotFound() {
+            given()
+                .when()
+                    .get("/cases/ccd/9999999999999999")
+                .then()
+                    .statusCode(404)
+                    .header("Server-Timing", containsString("total;dur="));
+        }
+    }
+
+    @Nested
+    @DisplayName("ETag and If-None-Match")
+    class EntityTag {
+
+        @Test
+        @DisplayName("should return an ETag with the case")
+        void shouldReturnEtag() {
+            given()
+                .when()
+                    .get("/cases/ccd/1000000000000001")
+                .then()
+                    .statusCode(200)
+                    .header("ETag", not(emptyOrNullString()))
+                    .body("case.ccdCaseNumber", equalTo("1000000000000001"));
+        }
+
+        @Test
+        @DisplayName("should return 304 without a body for a matching If-None-Match")
+        void shouldReturnNotModified() {
+            String etag = given().when().get("/cases/ccd/1000000000000001")
+                .then().statusCode(200).extract().header("ETag");
+
+            given()
+                .header("If-None-Match", etag)
+                .when()
+                    .get("/cases/ccd/1000000000000001")
+                .then()
+                    .statusCode(304)
+                    .header("ETag", equalTo(etag))
+                    .body(emptyString());
+        }
+
+        @Test
+        @DisplayName("should return the changed case with a new ETag after an execute")
+        void shouldReturnNewEtagAfterExecute() {
+            String ccdCaseNumber = "1000000000000002";
+            String etag = given().when().get("/cases/ccd/" + ccdCaseNumber)
+                .then().statusCode(200).extract().header("ETag");
+
+            // Delete one of the two fees on service request 2
+            Response executeResponse = given()
+                .contentType(ContentType.JSON)
+                .body("""
+                    {
+                        "ccdCaseNumber": "%s",
+                        "serviceRequests": [
+                            {
+                                "id": 2,
+                                "fees": [{"id": 2}],
+                                "payments": [{"id": 2}, {"id": 3}]
+                            }
+                        ]
+                    }
+                    """.formatted(ccdCaseNumber))
+                .when()
+                .post("/cases/ccd/" + ccdCaseNumber + "/execute");
+            assertEquals(200, executeResponse.statusCode());
+
+            try {
+                given()
+                    .header("If-None-Match", etag)
+                    .when()
+                        .get("/cases/ccd/" + ccdCaseNumber)
+                    .then()
+                        .statusCode(200)
+                        .header("ETag", not(equalTo(etag)))
+                        .body("case.serviceRequests.find { it.id == 2 }.fees", hasSize(1));
+            } finally {
+                executeResponse.jsonPath().getList("paymentDatabaseRollbackSql", String.class)
+                        .forEach(paymentJdbcTemplate::execute);
+                executeResponse.jsonPath().getList("refundsDatabaseRollbackSql", String.class)
+                        .forEach(refundsJdbcTemplate::execute);
+            }
+
+            given()
+                .header("If-None-Match", etag)
+                .when()
+                    .get("/cases/ccd/" + ccdCaseNumber)
+                .then()
+                    .statusCode(304);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package uk.gov.hmcts.reform.dbtool.e2e;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Concurrent exports and case reads on a payments pool smaller than the work in flight.
+ * Exports page through CCD numbers without holding a connection, so none of them waits out the pool timeout.
+ */
+@TestPropertySource(properties = {
+    "spring.datasource.payment.hikari.maximum-pool-size=3",
+    "spring.datasource.payment.hikari.connection-timeout=2000",
+    "dbtool.query.max-concurrency=3",
+    "dbtool.export.chunk-size=2",
+    "spring.cache.type=none"
+})
+class CaseExportConcurrencyIT extends BaseIT {
+
+    private static final String EXPORT = "/cases/export?fromCcd=1000000000000001&toCcd=9999999999999999";
+
+    @Test
+    @DisplayName("should run concurrent exports and reads on a small pool")
+    void shouldExportConcurrentlyOnSmallPool() {
+        String expected = given().when().get(EXPORT).then().statusCode(200).extract().asString();
+
+        List<CompletableFuture<String>> exports = new ArrayList<>();
+        List<CompletableFuture<Integer>> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            exports.add(CompletableFuture.supplyAsync(
+                    () -> given().when().get(EXPORT).then().statusCode(200).extract().asString()));
+        }
+        for (int i = 1; i <= 7; i++) {
+            String ccd = "100000000000000" + i;
+            reads.add(CompletableFuture.supplyAsync(
+                    () -> given().when().get("/cases/ccd/" + ccd).then().extract().statusCode()));
+        }
+
+        exports.forEach(export -> assertEquals(expected, export.join()));
+        reads.forEach(read -> assertEquals(200, read.join()));
+    }
+}
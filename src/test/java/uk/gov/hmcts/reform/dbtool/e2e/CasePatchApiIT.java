@@ -1,12 +1,22 @@
 package uk.gov.hmcts.reform.dbtool.e2e;
 
 import io.restassured.http.ContentType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 /**
  * Integration tests for the PATCH /api/cases/ccd/{ccdCaseNumber} endpoint.
@@ -14,6 +24,10 @@ import static org.hamcrest.Matchers.*;
  */
 class CasePatchApiIT extends BaseIT {
 
+    @Autowired
+    @Qualifier("refundsJdbcTemplate")
+    private JdbcTemplate refundsJdbcTemplate;
+
     @Nested
     @DisplayName("PATCH /api/cases/ccd/{ccdCaseNumber} - Basic Operations")
     class BasicOperations {
@@ -748,4 +762,115 @@ class CasePatchApiIT extends BaseIT {
             );
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("PATCH - SQL Script Download")
+    class SqlScriptDownload {
+
+        private static final String DELETE_ALL = """
+            {
+                "ccdCaseNumber": "1000000000000001",
+                "serviceRequests": []
+            }
+            """;
+
+        @Test
+        @DisplayName("should stream the payments script with a summary footer")
+        void shouldStreamPaymentsScript() {
+            given()
+                .contentType(ContentType.JSON)
+                .accept("application/sql")
+                .body(DELETE_ALL)
+            .when()
+                .patch("/cases/ccd/1000000000000001")
+            .then()
+                .statusCode(200)
+                .contentType(startsWith("application/sql"))
+                .header("Content-Disposition", containsString("1000000000000001-payments.sql"))
+                .body(startsWith("DELETE FROM "))
+                .body(containsString("DELETE FROM payment_fee_link WHERE id = 1;\n"))
+                .body(containsString("-- 4 statements; ChangeSummary[serviceRequestsToDelete=1"));
+        }
+
+        @Test
+        @DisplayName("should stream a rollback script gzipped on request")
+        void shouldStreamGzippedRollbackScript() {
+            // REST Assured asks for gzip and inflates the response before the body is checked
+            given()
+                .contentType(ContentType.JSON)
+                .accept(ContentType.TEXT)
+                .queryParam("script", "payments-rollback")
+                .body(DELETE_ALL)
+            .when()
+                .patch("/cases/ccd/1000000000000001")
+            .then()
+                .statusCode(200)
+                .header("Vary", "Accept-Encoding")
+                .body(startsWith("INSERT INTO payment_fee_link"));
+        }
+
+        @Test
+        @DisplayName("should return 404 for non-existent case")
+        void shouldReturn404ForNonExistentCase() {
+            given()
+                .contentType(ContentType.JSON)
+                .accept("application/sql")
+                .body(DELETE_ALL.replace("1000000000000001", "9999999999999999"))
+            .when()
+                .patch("/cases/ccd/9999999999999999")
+            .then()
+                .statusCode(404);
+        }
+    }
+
+    @Nested
+    @DisplayName("PATCH - Memory and Database Diff Strategies")
+    class DiffStrategies {
+
+        @BeforeEach
+        void insertNullCcdRefund() {
+            refundsJdbcTemplate.execute(PatchShapes.INSERT_NULL_CCD_REFUND);
+        }
+
+        @AfterEach
+        void deleteNullCcdRefund() {
+            refundsJdbcTemplate.execute(PatchShapes.DELETE_NULL_CCD_REFUND);
+        }
+
+        @ParameterizedTest(name = "{0}")
+        @MethodSource("uk.gov.hmcts.reform.dbtool.e2e.PatchShapes#shapes")
+        @DisplayName("should generate the same SQL and scripts with diff=database as with diff=memory")
+        void shouldMatchMemoryDiff(String shape, String ccdCaseNumber, String serviceRequests) {
+            String requestBody = PatchShapes.body(ccdCaseNumber, serviceRequests);
+
+            assertEquals(patch(ccdCaseNumber, "memory", requestBody), patch(ccdCaseNumber, "database", requestBody));
+            for (String script : new String[] {"payments", "refunds", "payments-rollback", "refunds-rollback"}) {
+                assertEquals(script(ccdCaseNumber, "memory", script, requestBody),
+                        script(ccdCaseNumber, "database", script, requestBody), script);
+            }
+        }
+
+        private Map<String, Object> patch(String ccdCaseNumber, String diff, String requestBody) {
+            return given()
+                .contentType(ContentType.JSON)
+                .body(requestBody)
+            .when()
+                .patch("/cases/ccd/" + ccdCaseNumber + "?diff=" + diff)
+            .then()
+                .statusCode(200)
+                .extract().jsonPath().getMap("$");
+        }
+
+        private String script(String ccdCaseNumber, String diff, String script, String requestBody) {
+            return given()
+                .contentType(ContentType.JSON)
+                .accept("application/sql")
+                .body(requestBody)
+            .when()
+                .patch("/cases/ccd/" + ccdCaseNumber + "?diff=" + diff + "&script=" + script)
+            .then()
+                .statusCode(200)
+                .extract().asString();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package uk.gov.hmcts.reform.dbtool.e2e;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Integration tests for the reactive read path over R2DBC.
+ */
+@TestPropertySource(properties = "dbtool.r2dbc.enabled=true")
+class CaseReactiveApiIT extends BaseIT {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"1000000000000001", "1000000000000002", "1000000000000004", "1000000000000006"})
+    @DisplayName("should return the same case and summary as the servlet path")
+    void shouldMatchServletPath(String ccd) {
+        Map<String, Object> servlet = given().when().get("/cases/ccd/" + ccd)
+                .then().statusCode(200).extract().jsonPath().getMap("$");
+
+        Map<String, Object> reactive = given().when().get("/cases/reactive/ccd/" + ccd)
+                .then().statusCode(200).extract().jsonPath().getMap("$");
+
+        assertEquals(servlet, reactive);
+    }
+
+    @Test
+    @DisplayName("should return 404 for a case with no data")
+    void shouldReturnNotFound() {
+        given()
+            .when()
+                .get("/cases/reactive/ccd/9999999999999999")
+            .then()
+                .statusCode(404);
+    }
+
+    @Test
+    @DisplayName("should time the queries across the async dispatch")
+    void shouldTimeReactiveLoad() {
+        given()
+            .when()
+                .get("/cases/reactive/ccd/1000000000000001")
+            .then()
+                .statusCode(200)
+                .header("Server-Timing", allOf(containsString("payments-db;dur="),
+                        containsString("map;dur="), containsString("serialize;dur="),
+                        containsString("total;dur=")));
+    }
+}
@@ -0,0 +1,71 @@
+package uk.gov.hmcts.reform.dbtool.e2e;
+
+import org.junit.jupiter.params.provider.Arguments;
+
+import java.util.stream.Stream;
+
+/**
+ * Patch requests covering each kind of change, for comparing the memory and database diff strategies.
+ * Each argument set is a name, the CCD case number and the request body.
+ */
+final class PatchShapes {
+
+    /**
+     * A refund on Test Case 4's payment recorded without a CCD, only found through its payment reference
+     */
+    static final String INSERT_NULL_CCD_REFUND = """
+        INSERT INTO refunds (id, date_created, date_updated, amount, reason, refund_status, reference,
+                             payment_reference, created_by, updated_by, ccd_case_number, refund_instruction_type)
+        VALUES (99, '2024-01-21 12:00:00', '2024-01-21 12:00:00', 10.00, 'Overpayment', 'Approved', 'RF-TEST-0099',
+                'RC-TEST-0005', 'system', 'admin', NULL, 'AUTOMATED')""";
+
+    static final String DELETE_NULL_CCD_REFUND = "DELETE FROM refunds WHERE id = 99";
+
+    private PatchShapes() {
+    }
+
+    static Stream<Arguments> shapes() {
+        return Stream.of(
+            Arguments.of("keep all", "1000000000000001", """
+                [{"id": 1, "fees": [{"id": 1}], "payments": [{"id": 1, "apportionments": [{"id": 1}]}]}]
+                """),
+            Arguments.of("delete all", "1000000000000006", "[]"),
+            Arguments.of("merge into the first service request", "1000000000000006", """
+                [{"id": 7, "fees": [{"id": 7}, {"id": 8}], "payments": [
+                    {"id": 7, "apportionments": [{"id": 7}]},
+                    {"id": 8, "apportionments": [{"id": 8}], "refunds": [{"reference": "RF-TEST-0002"}]}]}]
+                """),
+            Arguments.of("merge into the last service request", "1000000000000006", """
+                [{"id": 8, "fees": [{"id": 7}, {"id": 8}], "payments": [
+                    {"id": 7, "apportionments": [{"id": 7}]},
+                    {"id": 8, "apportionments": [{"id": 8}], "refunds": [{"reference": "RF-TEST-0002"}]}]}]
+                """),
+            Arguments.of("match by reference only", "1000000000000006", """
+                [{"paymentReference": "PAY-TEST-007", "fees": [{"id": 7}], "payments": [
+                    {"reference": "RC-TEST-0007", "apportionments": [{"id": 7}]},
+                    {"reference": "RC-TEST-0008", "apportionments": [{"id": 8}],
+                     "refunds": [{"reference": "RF-TEST-0002"}]}]}]
+                """),
+            Arguments.of("drop a fee", "1000000000000002", """
+                [{"id": 2, "fees": [{"id": 2}], "payments": [{"id": 2, "apportionments": [{"id": 2}]}, {"id": 3}]}]
+                """),
+            Arguments.of("drop a remission", "1000000000000007", """
+                [{"id": 9, "fees": [{"id": 9, "remissions": [{"hwfReference": "HWF-AAA-001"}]}],
+                  "payments": [{"id": 9, "apportionments": [{"id": 9}]}]}]
+                """),
+            Arguments.of("drop the refunds", "1000000000000004", """
+                [{"id": 4, "fees": [{"id": 5}], "payments": [{"id": 5, "apportionments": [{"id": 5}], "refunds": []}]}]
+                """),
+            Arguments.of("drop the NULL-CCD refund", "1000000000000004", """
+                [{"id": 4, "fees": [{"id": 5}], "payments": [
+                    {"id": 5, "apportionments": [{"id": 5}], "refunds": [{"reference": "RF-TEST-0001"}]}]}]
+                """)
+        );
+    }
+
+    static String body(String ccdCaseNumber, String serviceRequests) {
+        return """
+            {"ccdCaseNumber": "%s", "serviceRequests": %s}
+            """.formatted(ccdCaseNumber, serviceRequests);
+    }
+}
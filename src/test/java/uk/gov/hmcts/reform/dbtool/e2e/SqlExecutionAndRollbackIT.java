@@ -2,12 +2,20 @@ package uk.gov.hmcts.reform.dbtool.e2e;
 
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -325,8 +333,132 @@ class SqlExecutionAndRollbackIT extends BaseIT {
         assertEquals(initialState, afterState, "State should be unchanged");
     }
 
+    @Test
+    @DisplayName("EXECUTE and ROLLBACK: Should apply changes server-side and restore them with the returned rollback SQL")
+    void shouldExecuteAndRollbackAcrossBothDatabases() {
+        String ccdCaseNumber = "1000000000000004";
+
+        Map<String, Object> initialState = captureState(ccdCaseNumber);
+        int initialRefundCount = countRefundsForCase(ccdCaseNumber);
+        assertTrue(initialRefundCount > 0, "Should have refunds initially");
+
+        String executeBody = """
+            {
+                "ccdCaseNumber": "%s",
+                "serviceRequests": []
+            }
+            """.formatted(ccdCaseNumber);
+
+        Response executeResponse = given()
+            .contentType(ContentType.JSON)
+            .body(executeBody)
+            .when()
+            .post("/cases/ccd/" + ccdCaseNumber + "/execute");
+
+        assertEquals(200, executeResponse.statusCode());
+        assertFalse(executeResponse.jsonPath().getList("batches").isEmpty(), "Should report batch timings");
+        assertEquals(initialRefundCount, executeResponse.jsonPath().getInt("summary.refundsToDelete"));
+
+        // Both databases changed
+        Map<String, Object> afterExecuteState = captureState(ccdCaseNumber);
+        assertEquals(0, afterExecuteState.get("linkCount"), "Links should be deleted");
+        assertEquals(0, countRefundsForCase(ccdCaseNumber), "Refunds should be deleted");
+
+        for (String sql : executeResponse.jsonPath().getList("paymentDatabaseRollbackSql", String.class)) {
+            paymentJdbcTemplate.execute(sql);
+        }
+        for (String sql : executeResponse.jsonPath().getList("refundsDatabaseRollbackSql", String.class)) {
+            refundsJdbcTemplate.execute(sql);
+        }
+
+        assertEquals(initialState, captureState(ccdCaseNumber), "Payments state should match initial state");
+        assertEquals(initialRefundCount, countRefundsForCase(ccdCaseNumber), "Refund count should match initial");
+    }
+
+    @Nested
+    @DisplayName("Database diff strategy")
+    class DatabaseDiffStrategy {
+
+        @BeforeEach
+        void insertNullCcdRefund() {
+            refundsJdbcTemplate.execute(PatchShapes.INSERT_NULL_CCD_REFUND);
+        }
+
+        @AfterEach
+        void deleteNullCcdRefund() {
+            refundsJdbcTemplate.execute(PatchShapes.DELETE_NULL_CCD_REFUND);
+        }
+
+        @ParameterizedTest(name = "{0}")
+        @MethodSource("uk.gov.hmcts.reform.dbtool.e2e.PatchShapes#shapes")
+        @DisplayName("EXECUTE and ROLLBACK with diff=database: Should change what diff=memory SQL changes and restore it")
+        void shouldExecuteAndRollbackWithDatabaseDiff(String shape, String ccdCaseNumber, String serviceRequests) {
+            String body = PatchShapes.body(ccdCaseNumber, serviceRequests);
+            Map<String, List<Map<String, Object>>> initialRows = captureRows(ccdCaseNumber);
+
+            Response memoryPatch = patch(ccdCaseNumber, "memory", body);
+            Response databasePatch = patch(ccdCaseNumber, "database", body);
+            assertEquals(memoryPatch.jsonPath().getMap("$"), databasePatch.jsonPath().getMap("$"));
+
+            Response executeResponse = given()
+                .contentType(ContentType.JSON)
+                .body(body)
+                .when()
+                .post("/cases/ccd/" + ccdCaseNumber + "/execute?diff=database");
+            assertEquals(200, executeResponse.statusCode());
+            assertEquals(memoryPatch.jsonPath().getMap("summary"), executeResponse.jsonPath().getMap("summary"));
+            Map<String, List<Map<String, Object>>> executedRows = captureRows(ccdCaseNumber);
+
+            runScripts(executeResponse, "paymentDatabaseRollbackSql", "refundsDatabaseRollbackSql");
+            assertEquals(initialRows, captureRows(ccdCaseNumber), "Execute rollback should restore every row");
+
+            // The generated SQL makes the same change, and its rollback restores it too
+            runScripts(memoryPatch, "paymentDatabaseSql", "refundsDatabaseSql");
+            assertEquals(executedRows, captureRows(ccdCaseNumber), "PATCH SQL should match the executed change");
+            runScripts(memoryPatch, "paymentDatabaseRollbackSql", "refundsDatabaseRollbackSql");
+            assertEquals(initialRows, captureRows(ccdCaseNumber), "PATCH rollback should restore every row");
+        }
+
+        private Response patch(String ccdCaseNumber, String diff, String body) {
+            Response response = given()
+                .contentType(ContentType.JSON)
+                .body(body)
+                .when()
+                .patch("/cases/ccd/" + ccdCaseNumber + "?diff=" + diff);
+            assertEquals(200, response.statusCode());
+            return response;
+        }
+
+        private void runScripts(Response response, String paymentScript, String refundsScript) {
+            response.jsonPath().getList(paymentScript, String.class).forEach(paymentJdbcTemplate::execute);
+            response.jsonPath().getList(refundsScript, String.class).forEach(refundsJdbcTemplate::execute);
+        }
+    }
+
     // Helper methods
 
+    /**
+     * Every column of every row of the case, by table, including refunds on its payments recorded under no CCD
+     */
+    private Map<String, List<Map<String, Object>>> captureRows(String ccdCaseNumber) {
+        Map<String, List<Map<String, Object>>> rows = new LinkedHashMap<>();
+        for (String table : List.of("payment_fee_link", "fee", "payment", "remission", "fee_pay_apportion")) {
+            rows.put(table, paymentJdbcTemplate.queryForList(
+                "SELECT * FROM " + table + " WHERE ccd_case_number = ? ORDER BY id", ccdCaseNumber));
+        }
+        List<String> references = paymentJdbcTemplate.queryForList(
+            "SELECT reference FROM payment WHERE ccd_case_number = ? AND reference IS NOT NULL",
+            String.class, ccdCaseNumber);
+        String placeholders = String.join(", ", Collections.nCopies(references.size(), "?"));
+        List<Object> args = new ArrayList<>(references);
+        args.add(0, ccdCaseNumber);
+        rows.put("refunds", refundsJdbcTemplate.queryForList(
+            "SELECT * FROM refunds WHERE ccd_case_number = ?"
+                + (references.isEmpty() ? "" : " OR payment_reference IN (" + placeholders + ")")
+                + " ORDER BY id", args.toArray()));
+        return rows;
+    }
+
     private Map<String, Object> captureState(String ccdCaseNumber) {
         int linkCount = paymentJdbcTemplate.queryForObject(
             "SELECT COUNT(*) FROM payment_fee_link WHERE ccd_case_number = ?",
@@ -0,0 +1,73 @@
+package uk.gov.hmcts.reform.dbtool.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uk.gov.hmcts.reform.dbtool.database.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class CaseJsonRepositoryTest {
+
+    private CaseJsonRepository caseJsonRepository;
+
+    @BeforeEach
+    void setUp() {
+        caseJsonRepository = new CaseJsonRepository(mock(JdbcTemplate.class),
+            new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+
+    @Test
+    void testHydrate_mapsSnakeCaseColumnsToEntities() {
+        Map<String, String> rows = Map.of(
+            "payment_fee_link", """
+                [{"id": 1, "payment_reference": "PAY-1", "ccd_case_number": "1234",
+                  "date_created": "2024-01-15T10:30:00", "date_updated": "2024-01-15T10:30:00.123456"}]""",
+            "fee", """
+                [{"id": 10, "code": "FEE0001", "payment_link_id": 1, "fee_amount": 100.00, "volume": 1}]""",
+            "payment", """
+                [{"id": 20, "reference": "RC-1", "amount": 50.50, "payment_link_id": 1,
+                  "banked_date": null, "unknown_column": "ignored"}]""",
+            "remission", """
+                [{"id": 30, "fee_id": 10, "hwf_reference": "HWF-1", "hwf_amount": 25}]""",
+            "fee_pay_apportion", "[]"
+        );
+
+        CaseSnapshot snapshot = caseJsonRepository.hydrate(rows);
+
+        assertEquals(1, snapshot.links().size());
+        PaymentFeeLinkEntity link = snapshot.links().get(0);
+        assertEquals(1L, link.getId());
+        assertEquals("PAY-1", link.getPaymentReference());
+        assertEquals(LocalDateTime.of(2024, 1, 15, 10, 30), link.getDateCreated());
+
+        FeeEntity fee = snapshot.fees().get(0);
+        assertEquals(1L, fee.getPaymentLinkId());
+        assertEquals(new BigDecimal("100.00"), fee.getFeeAmount());
+
+        PaymentEntity payment = snapshot.payments().get(0);
+        assertEquals("RC-1", payment.getReference());
+        assertEquals(new BigDecimal("50.50"), payment.getAmount());
+        assertNull(payment.getBankedDate());
+
+        assertEquals("HWF-1", snapshot.remissions().get(0).getHwfReference());
+        assertTrue(snapshot.apportionments().isEmpty());
+        assertTrue(snapshot.refunds().isEmpty());
+    }
+
+    @Test
+    void testHydrate_missingSourcesAreEmpty() {
+        CaseSnapshot snapshot = caseJsonRepository.hydrate(Map.of());
+
+        assertTrue(snapshot.isEmpty());
+        assertTrue(snapshot.fees().isEmpty());
+        assertTrue(snapshot.payments().isEmpty());
+    }
+}
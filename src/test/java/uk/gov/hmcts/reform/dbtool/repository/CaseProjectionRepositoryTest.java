@@ -0,0 +1,55 @@
+package uk.gov.hmcts.reform.dbtool.repository;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.dbtool.database.FeeEntity;
+import uk.gov.hmcts.reform.dbtool.database.PaymentEntity;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CaseProjectionRepositoryTest {
+
+    @Test
+    void testPaymentMapper_mapsSelectedColumnsOnly() throws Exception {
+        LocalDateTime created = LocalDateTime.of(2024, 1, 15, 10, 30);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(20L);
+        when(rs.getString("reference")).thenReturn("RC-1");
+        when(rs.getObject("payment_link_id", Long.class)).thenReturn(1L);
+        when(rs.getBigDecimal("amount")).thenReturn(new BigDecimal("50.50"));
+        when(rs.getString("payment_status")).thenReturn("success");
+        when(rs.getObject("date_created", LocalDateTime.class)).thenReturn(created);
+
+        PaymentEntity payment = CaseProjectionRepository.PAYMENT_MAPPER.mapRow(rs, 0);
+
+        assertEquals(20L, payment.getId());
+        assertEquals("RC-1", payment.getReference());
+        assertEquals(1L, payment.getPaymentLinkId());
+        assertEquals(new BigDecimal("50.50"), payment.getAmount());
+        assertEquals("success", payment.getPaymentStatus());
+        assertEquals(created, payment.getDateCreated());
+        assertNull(payment.getBankedDate());
+        // Columns the case view does not use are never read
+        verify(rs, never()).getString("description");
+        verify(rs, never()).getString("internal_reference");
+        assertNull(payment.getCcdCaseNumber());
+    }
+
+    @Test
+    void testFeeMapper_keepsNullableNumbersNull() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(10L);
+        when(rs.getString("code")).thenReturn("FEE0001");
+
+        FeeEntity fee = CaseProjectionRepository.FEE_MAPPER.mapRow(rs, 0);
+
+        assertEquals(10L, fee.getId());
+        assertEquals("FEE0001", fee.getCode());
+        assertNull(fee.getPaymentLinkId());
+        assertNull(fee.getVolume());
+    }
+}
@@ -0,0 +1,60 @@
+package uk.gov.hmcts.reform.dbtool.repository;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.dbtool.domain.CaseSummary;
+import uk.gov.hmcts.reform.dbtool.repository.CaseSummaryRepository.PaymentTotals;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CaseSummaryRepositoryTest {
+
+    @Test
+    void testPaymentTotalsMapper_readsAggregatesAndReferences() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        Array references = mock(Array.class);
+        when(rs.getInt("service_request_count")).thenReturn(2);
+        when(rs.getInt("fee_count")).thenReturn(3);
+        when(rs.getBigDecimal("total_fees")).thenReturn(new BigDecimal("450"));
+        when(rs.getInt("payment_count")).thenReturn(2);
+        when(rs.getBigDecimal("total_payments")).thenReturn(new BigDecimal("300"));
+        when(rs.getInt("remission_count")).thenReturn(1);
+        when(rs.getBigDecimal("total_remissions")).thenReturn(new BigDecimal("25"));
+        when(rs.getArray("payment_references")).thenReturn(references);
+        when(references.getArray()).thenReturn(new String[]{"RC-1", "RC-2"});
+
+        PaymentTotals totals = CaseSummaryRepository.PAYMENT_TOTALS_MAPPER.mapRow(rs, 0);
+
+        assertEquals(new PaymentTotals(2, 3, 450, 2, 300, 1, 25, List.of("RC-1", "RC-2")), totals);
+    }
+
+    @Test
+    void testPaymentTotalsMapper_noPaymentReferences() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getBigDecimal(anyString())).thenReturn(BigDecimal.ZERO);
+
+        PaymentTotals totals = CaseSummaryRepository.PAYMENT_TOTALS_MAPPER.mapRow(rs, 0);
+
+        assertTrue(totals.paymentReferences().isEmpty());
+    }
+
+    @Test
+    void testToSummary_derivesNetAmountAndAmountDue() {
+        PaymentTotals totals = new PaymentTotals(1, 2, 500, 1, 300, 1, 50, List.of("RC-1"));
+
+        CaseSummary summary = CaseSummaryRepository.toSummary(totals, 1, 20);
+
+        assertEquals(500, summary.totalFees());
+        assertEquals(300, summary.totalPayments());
+        assertEquals(50, summary.totalRemissions());
+        assertEquals(20, summary.totalRefunds());
+        assertEquals(1, summary.refundCount());
+        assertEquals(330, summary.netAmount());
+        assertEquals(150, summary.amountDue());
+    }
+}
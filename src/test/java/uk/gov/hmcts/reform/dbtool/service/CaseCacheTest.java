@@ -0,0 +1,172 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import uk.gov.hmcts.reform.dbtool.database.PaymentFeeLinkEntity;
+import uk.gov.hmcts.reform.dbtool.domain.Case;
+import uk.gov.hmcts.reform.dbtool.domain.CasePatchRequest;
+import uk.gov.hmcts.reform.dbtool.domain.CaseVersion;
+import uk.gov.hmcts.reform.dbtool.mapper.CaseMapper;
+import uk.gov.hmcts.reform.dbtool.repository.*;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Verifies the case cache wiring on CaseQueryService and its invalidation by CaseDiffService.
+ */
+@SpringJUnitConfig(CaseCacheTest.Config.class)
+class CaseCacheTest {
+
+    private static final String CCD = "1234567890123456";
+    private static final CaseVersion VERSION = new CaseVersion(CCD + ";1/2024-01-15 10:30:00");
+
+    @Autowired
+    private CaseQueryService caseQueryService;
+
+    @Autowired
+    private CaseDiffService caseDiffService;
+
+    @Autowired
+    private PaymentFeeLinkRepository paymentFeeLinkRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CaseQueryService.CASE_CACHE).clear();
+        reset(paymentFeeLinkRepository);
+        PaymentFeeLinkEntity link = new PaymentFeeLinkEntity();
+        link.setId(1L);
+        link.setCcdCaseNumber(CCD);
+        when(paymentFeeLinkRepository.findByCcdCaseNumber(any())).thenReturn(List.of(link));
+    }
+
+    @Test
+    void testQueryCaseByCcd_secondCallServedFromCache() {
+        List<Case> first = caseQueryService.queryCaseByCcd(CCD, null, VERSION, CaseInclude.ALL);
+        List<Case> second = caseQueryService.queryCaseByCcd(CCD, null, VERSION, CaseInclude.ALL);
+
+        assertSame(first, second);
+        verify(paymentFeeLinkRepository, times(1)).findByCcdCaseNumber(CCD);
+    }
+
+    @Test
+    void testQueryCaseByCcd_explicitLoadStrategyBypassesCache() {
+        caseQueryService.queryCaseByCcd(CCD, null, VERSION, CaseInclude.ALL);
+        caseQueryService.queryCaseByCcd(CCD, CaseLoadStrategy.JPA, VERSION, CaseInclude.ALL);
+
+        verify(paymentFeeLinkRepository, times(2)).findByCcdCaseNumber(CCD);
+    }
+
+    @Test
+    void testQueryCaseByCcd_emptyResultNotCached() {
+        when(paymentFeeLinkRepository.findByCcdCaseNumber("missing")).thenReturn(List.of());
+
+        caseQueryService.queryCaseByCcd("missing", null, VERSION, CaseInclude.ALL);
+        caseQueryService.queryCaseByCcd("missing", null, VERSION, CaseInclude.ALL);
+
+        verify(paymentFeeLinkRepository, times(2)).findByCcdCaseNumber("missing");
+    }
+
+    @Test
+    void testQueryCaseByCcd_versionIsPartOfTheCacheKey() {
+        CaseVersion v1 = new CaseVersion(CCD + ";1/2024-01-15 10:30:00");
+        CaseVersion v2 = new CaseVersion(CCD + ";2/2024-01-15 10:31:00");
+
+        List<Case> first = caseQueryService.queryCaseByCcd(CCD, null, v1, CaseInclude.ALL);
+        List<Case> again = caseQueryService.queryCaseByCcd(CCD, null, v1, CaseInclude.ALL);
+        caseQueryService.queryCaseByCcd(CCD, null, v2, CaseInclude.ALL);
+
+        assertSame(first, again);
+        // A new version never reuses the entry cached under the old one
+        verify(paymentFeeLinkRepository, times(2)).findByCcdCaseNumber(CCD);
+    }
+
+    @Test
+    void testQueryCaseByCcd_includedEntitySetsArePartOfTheCacheKey() {
+        CaseVersion version = new CaseVersion(CCD + ";1/2024-01-15 10:30:00");
+
+        caseQueryService.queryCaseByCcd(CCD, null, version, CaseInclude.ALL);
+        caseQueryService.queryCaseByCcd(CCD, null, version, CaseInclude.resolve(List.of(CaseInclude.FEES)));
+        caseQueryService.queryCaseByCcd(CCD, null, version, CaseInclude.resolve(List.of(CaseInclude.FEES)));
+
+        // A partial case is never served for a full request, nor the other way round
+        verify(paymentFeeLinkRepository, times(2)).findByCcdCaseNumber(CCD);
+    }
+
+    @Test
+    void testGenerateDeletionSql_evictsCachedCase() {
+        Set<CaseInclude> fees = CaseInclude.resolve(List.of(CaseInclude.FEES));
+        caseQueryService.queryCaseByCcd(CCD, null, VERSION, CaseInclude.ALL);
+        caseQueryService.queryCaseByCcd(CCD, null, VERSION, fees);
+
+        caseDiffService.generateDeletionSql(new CasePatchRequest(CCD, List.of()));
+        caseQueryService.queryCaseByCcd(CCD, null, VERSION, CaseInclude.ALL);
+        caseQueryService.queryCaseByCcd(CCD, null, VERSION, fees);
+
+        // Twice for the first queries, once for the diff and twice after eviction
+        verify(paymentFeeLinkRepository, times(5)).findByCcdCaseNumber(CCD);
+    }
+
+    @Configuration
+    @EnableCaching
+    static class Config {
+
+        @Bean
+        static ConversionService conversionService() {
+            // Lenient enum conversion for dbtool.query.loader, as in the application context
+            return ApplicationConversionService.getSharedInstance();
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            CaffeineCacheManager cacheManager = new CaffeineCacheManager(CaseQueryService.CASE_CACHE);
+            cacheManager.setCaffeine(Caffeine.newBuilder().maximumSize(10));
+            return cacheManager;
+        }
+
+        @Bean
+        PaymentFeeLinkRepository paymentFeeLinkRepository() {
+            return mock(PaymentFeeLinkRepository.class);
+        }
+
+        @Bean
+        CaseQueryService caseQueryService(PaymentFeeLinkRepository paymentFeeLinkRepository) {
+            return new CaseQueryService(paymentFeeLinkRepository, mock(FeeRepository.class),
+                mock(PaymentRepository.class), mock(RefundRepository.class), mock(RemissionRepository.class),
+                mock(ApportionmentRepository.class), mock(CaseJsonRepository.class), mock(CaseProjectionRepository.class),
+                mock(CaseSummaryRepository.class), mock(CaseVersionRepository.class),
+                new CaseMapper(),
+                new CaseQueryExecutor(Runnable::run, new SimpleMeterRegistry()),
+                new CaseRefundLoader(new CaseQueryExecutor(Runnable::run, new SimpleMeterRegistry())),
+                new CaseMetrics(new SimpleMeterRegistry()),
+                new CaseLoadCoalescer(new SimpleMeterRegistry()));
+        }
+
+        @Bean
+        CaseDiffService caseDiffService(PaymentFeeLinkRepository paymentFeeLinkRepository) {
+            return new CaseDiffService(paymentFeeLinkRepository, mock(FeeRepository.class),
+                mock(PaymentRepository.class), mock(RemissionRepository.class), mock(RefundRepository.class),
+                mock(ApportionmentRepository.class),
+                new CaseRefundLoader(new CaseQueryExecutor(Runnable::run, new SimpleMeterRegistry())),
+                mock(CaseDatabaseDiff.class), new CaseMetrics(new SimpleMeterRegistry()));
+        }
+    }
+}
@@ -4,11 +4,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import uk.gov.hmcts.reform.dbtool.database.*;
 import uk.gov.hmcts.reform.dbtool.domain.*;
 import uk.gov.hmcts.reform.dbtool.repository.*;
 
+import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.util.List;
 
@@ -36,6 +39,16 @@ class CaseDiffServiceTest {
     @Mock
     private ApportionmentRepository apportionmentRepository;
 
+    @Mock
+    private CaseDatabaseDiff caseDatabaseDiff;
+
+    @Spy
+    private CaseRefundLoader caseRefundLoader =
+        new CaseRefundLoader(new CaseQueryExecutor(Runnable::run, new SimpleMeterRegistry()));
+
+    @Spy
+    private CaseMetrics caseMetrics = new CaseMetrics(new SimpleMeterRegistry());
+
     @InjectMocks
     private CaseDiffService caseDiffService;
 
@@ -66,6 +79,88 @@ class CaseDiffServiceTest {
         assertTrue(result.paymentDatabaseSql().get(0).contains("DELETE FROM payment_fee_link WHERE id = 2"));
     }
 
+    @Test
+    void testGenerateDeletionSql_withLoadedSnapshotReadsNothing() {
+        String ccd = "1234567890123456";
+        CaseSnapshot snapshot = new CaseSnapshot(List.of(createLink(1L, ccd, "PAY-001"), createLink(2L, ccd, "PAY-002")),
+            List.of(), List.of(), List.of(), List.of(), List.of());
+        CasePatchRequest request = new CasePatchRequest(
+            ccd,
+            List.of(createServiceRequest(1L, null, List.of(), List.of()))
+        );
+
+        SqlGenerationResult result = caseDiffService.generateDeletionSql(request, SqlOutputMode.PER_ROW, snapshot);
+
+        assertEquals(1, result.summary().serviceRequestsToDelete());
+        verifyNoInteractions(paymentFeeLinkRepository, feeRepository, paymentRepository, remissionRepository,
+            refundRepository, apportionmentRepository);
+    }
+
+    @Test
+    void testGenerateDeletionSql_databaseStrategyLoadsNoCaseRows() {
+        String ccd = "1234567890123456";
+        CasePatchRequest request = new CasePatchRequest(ccd, List.of());
+        when(caseDatabaseDiff.caseExists(ccd)).thenReturn(true);
+        when(caseDatabaseDiff.planChanges(request, true)).thenReturn(new CaseChangePlan(
+            List.of(createLink(1L, ccd, "PAY-001")), List.of(), List.of(), List.of(), List.of(), List.of(),
+            List.of(), List.of(), List.of(), List.of()));
+
+        SqlGenerationResult result = caseDiffService.generateDeletionSql(request, SqlOutputMode.PER_ROW,
+            CaseDiffStrategy.DATABASE).orElseThrow();
+
+        assertEquals(List.of("DELETE FROM payment_fee_link WHERE id = 1;"), result.paymentDatabaseSql());
+        verifyNoInteractions(paymentFeeLinkRepository, feeRepository, paymentRepository, remissionRepository,
+            refundRepository, apportionmentRepository);
+    }
+
+    @Test
+    void testGenerateDeletionSql_caseNotFoundIsEmptyWithEitherStrategy() {
+        String ccd = "1234567890123456";
+        CasePatchRequest request = new CasePatchRequest(ccd, List.of());
+        when(paymentFeeLinkRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of());
+
+        assertTrue(caseDiffService.generateDeletionSql(request, SqlOutputMode.PER_ROW, (CaseDiffStrategy) null).isEmpty());
+        assertTrue(caseDiffService.generateDeletionSql(request, SqlOutputMode.PER_ROW,
+            CaseDiffStrategy.DATABASE).isEmpty());
+        verify(caseDatabaseDiff, never()).planChanges(any(), anyBoolean());
+    }
+
+    @Test
+    void testWriteScript_writesOneScriptThenTheSummary() throws Exception {
+        String ccd = "1234567890123456";
+        RefundEntity refund = new RefundEntity();
+        refund.setId(30L);
+        refund.setReference("RF-30");
+        CaseChangePlan plan = new CaseChangePlan(
+            List.of(createLink(1L, ccd, "PAY-001"), createLink(2L, ccd, "PAY-002")), List.of(), List.of(),
+            List.of(), List.of(refund), List.of(), List.of(), List.of(), List.of(), List.of());
+        StringWriter out = new StringWriter();
+
+        caseDiffService.writeScript(plan, SqlOutputMode.PER_ROW, SqlScript.PAYMENTS_ROLLBACK, out);
+
+        List<String> lines = out.toString().lines().toList();
+        assertEquals(CaseSqlRenderer.render(plan, SqlOutputMode.PER_ROW).paymentDatabaseRollbackSql(),
+            lines.subList(0, 2));
+        assertEquals("-- 2 statements; " + plan.summary(), lines.get(2));
+        assertEquals(3, lines.size());
+    }
+
+    @Test
+    void testPlanScript_databaseStrategyReadsFullRowsOnlyForRollback() {
+        String ccd = "1234567890123456";
+        CasePatchRequest request = new CasePatchRequest(ccd, List.of());
+        when(caseDatabaseDiff.caseExists(ccd)).thenReturn(true);
+        when(caseDatabaseDiff.planChanges(eq(request), anyBoolean())).thenReturn(new CaseChangePlan(
+            List.of(), List.of(), List.of(), List.of(), List.of(), List.of(),
+            List.of(), List.of(), List.of(), List.of()));
+
+        caseDiffService.planScript(request, CaseDiffStrategy.DATABASE, SqlScript.REFUNDS);
+        caseDiffService.planScript(request, CaseDiffStrategy.DATABASE, SqlScript.REFUNDS_ROLLBACK);
+
+        verify(caseDatabaseDiff).planChanges(request, false);
+        verify(caseDatabaseDiff).planChanges(request, true);
+    }
+
     @Test
     void testGenerateDeletionSql_deleteByPaymentReference() {
         String ccd = "1234567890123456";
@@ -749,4 +844,87 @@ class CaseDiffServiceTest {
         assertEquals(0, result.summary().feesToDelete());
         assertTrue(result.paymentDatabaseSql().isEmpty());
     }
-}
\ No newline at end of file
+
+    // ==================== SET-BASED OUTPUT TESTS ====================
+
+    @Test
+    void testGenerateDeletionSql_setBased_groupsDeletesPerTable() {
+        String ccd = "1234567890123456";
+
+        PaymentFeeLinkEntity link1 = createLink(1L, ccd, "PAY-001");
+        PaymentFeeLinkEntity link2 = createLink(2L, ccd, "PAY-002");
+        FeeEntity fee1 = createFeeEntity(101L, ccd, 1L);
+        FeeEntity fee2 = createFeeEntity(102L, ccd, 2L);
+        PaymentEntity payment = createPaymentEntity(201L, ccd, 1L, "RC-001");
+        RefundEntity refund1 = createRefundEntity(301L, "RF-001", "RC-001");
+        RefundEntity refund2 = createRefundEntity(302L, "RF-002", "RC-001");
+
+        when(paymentFeeLinkRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of(link1, link2));
+        when(feeRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of(fee1, fee2));
+        when(paymentRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of(payment));
+        when(remissionRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of());
+        when(apportionmentRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of());
+        when(refundRepository.findByPaymentReferenceIn(List.of("RC-001"))).thenReturn(List.of(refund1, refund2));
+
+        CasePatchRequest request = new CasePatchRequest(ccd, List.of());
+
+        SqlGenerationResult perRow = caseDiffService.generateDeletionSql(request, SqlOutputMode.PER_ROW);
+        SqlGenerationResult setBased = caseDiffService.generateDeletionSql(request, SqlOutputMode.SET_BASED);
+
+        assertEquals(perRow.summary(), setBased.summary());
+        assertEquals(List.of(
+            "DELETE FROM fee WHERE id IN (101, 102);",
+            "DELETE FROM payment WHERE id IN (201);",
+            "DELETE FROM payment_fee_link WHERE id IN (1, 2);"), setBased.paymentDatabaseSql());
+        assertEquals(List.of("DELETE FROM refunds WHERE id IN (301, 302);"), setBased.refundsDatabaseSql());
+
+        // One multi-row INSERT per table, parents first
+        assertEquals(3, setBased.paymentDatabaseRollbackSql().size());
+        String linkInsert = setBased.paymentDatabaseRollbackSql().get(0);
+        assertTrue(linkInsert.startsWith("INSERT INTO payment_fee_link "));
+        assertTrue(linkInsert.contains("VALUES (1, NULL, NULL, 'PAY-001', "));
+        assertTrue(linkInsert.contains("), (2, NULL, NULL, 'PAY-002', "));
+        assertTrue(linkInsert.endsWith(");"));
+        assertTrue(setBased.paymentDatabaseRollbackSql().get(1).startsWith("INSERT INTO payment "));
+        assertTrue(setBased.paymentDatabaseRollbackSql().get(2).startsWith("INSERT INTO fee "));
+        assertEquals(1, setBased.refundsDatabaseRollbackSql().size());
+    }
+
+    @Test
+    void testGenerateDeletionSql_setBased_groupsMovesPerTargetLink() {
+        String ccd = "1234567890123456";
+
+        PaymentFeeLinkEntity link1 = createLink(1L, ccd, "PAY-001");
+        PaymentFeeLinkEntity link2 = createLink(2L, ccd, "PAY-002");
+        PaymentFeeLinkEntity link3 = createLink(3L, ccd, "PAY-003");
+        FeeEntity fee1 = createFeeEntity(101L, ccd, 2L);
+        FeeEntity fee2 = createFeeEntity(102L, ccd, 3L);
+        FeeEntity fee3 = createFeeEntity(103L, ccd, 2L);
+
+        when(paymentFeeLinkRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of(link1, link2, link3));
+        when(feeRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of(fee1, fee2, fee3));
+        when(paymentRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of());
+        when(remissionRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of());
+        when(apportionmentRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of());
+
+        // Every fee moves to link1; links 2 and 3 are deleted
+        CasePatchRequest request = new CasePatchRequest(ccd, List.of(createServiceRequest(1L, null,
+            List.of(createFee(101L, List.of()), createFee(102L, List.of()), createFee(103L, List.of())),
+            List.of())));
+
+        SqlGenerationResult result = caseDiffService.generateDeletionSql(request, SqlOutputMode.SET_BASED);
+
+        assertEquals(3, result.summary().feesToMove());
+        assertEquals(2, result.summary().serviceRequestsToDelete());
+        assertEquals(List.of(
+            "UPDATE fee SET payment_link_id = 1 WHERE id = ANY(ARRAY[101, 102, 103]);",
+            "DELETE FROM payment_fee_link WHERE id IN (2, 3);"), result.paymentDatabaseSql());
+
+        // Rollback restores each original link in one statement per link
+        assertEquals("UPDATE fee SET payment_link_id = 2 WHERE id = ANY(ARRAY[101, 103]);",
+            result.paymentDatabaseRollbackSql().get(0));
+        assertEquals("UPDATE fee SET payment_link_id = 3 WHERE id = ANY(ARRAY[102]);",
+            result.paymentDatabaseRollbackSql().get(1));
+        assertTrue(result.paymentDatabaseRollbackSql().get(2).startsWith("INSERT INTO payment_fee_link "));
+    }
+}
@@ -0,0 +1,101 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.dbtool.database.*;
+import uk.gov.hmcts.reform.dbtool.domain.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaseEntityIndexTest {
+
+    @Test
+    void testFindPayment_byIdThenByReferenceAcrossServiceRequests() {
+        PaymentEntity first = payment(20L, 1L, "RC-1");
+        PaymentEntity duplicate = payment(21L, 2L, "RC-1");
+        PaymentEntity other = payment(22L, 2L, "RC-2");
+        CaseEntityIndex index = CaseEntityIndex.of(new CaseSnapshot(
+                List.of(), List.of(), List.of(first, duplicate, other), List.of(), List.of(), List.of()));
+
+        assertSame(duplicate, index.find(payment(21L, "RC-2")));
+        assertNull(index.find(payment(99L, "RC-2")), "An unknown id does not fall back to the reference");
+        // The lowest id wins a shared reference
+        assertSame(first, index.find(payment(null, "RC-1")));
+        assertSame(other, index.find(payment(null, "RC-2")));
+        assertNull(index.find(payment(null, null)));
+    }
+
+    @Test
+    void testFindByReference_sharedReferenceResolvesToTheLowestIdWhateverTheLoadOrder() {
+        PaymentEntity later = payment(31L, 1L, "RC-1");
+        PaymentEntity lowest = payment(30L, 2L, "RC-1");
+        PaymentFeeLinkEntity laterLink = link(11L, "PAY-001");
+        PaymentFeeLinkEntity lowestLink = link(10L, "PAY-001");
+        CaseEntityIndex index = CaseEntityIndex.of(new CaseSnapshot(
+                List.of(laterLink, lowestLink), List.of(), List.of(later, lowest), List.of(), List.of(), List.of()));
+
+        assertSame(lowest, index.find(payment(null, "RC-1")));
+        assertSame(lowestLink, index.find(serviceRequest(null, "PAY-001")));
+    }
+
+    @Test
+    void testFindServiceRequest_byIdOrPaymentReference() {
+        PaymentFeeLinkEntity link = link(1L, "PAY-001");
+        CaseEntityIndex index = CaseEntityIndex.of(new CaseSnapshot(
+                List.of(link), List.of(), List.of(), List.of(), List.of(), List.of()));
+
+        assertSame(link, index.find(serviceRequest(1L, null)));
+        assertSame(link, index.find(serviceRequest(null, "PAY-001")));
+        assertNull(index.find(serviceRequest(2L, "PAY-001")));
+    }
+
+    @Test
+    void testFindRemissionsAndRefunds_matchEveryRowSharingTheReference() {
+        RemissionEntity remission1 = remission(40L, "HWF-1");
+        RemissionEntity remission2 = remission(41L, "HWF-1");
+        RefundEntity refund = new RefundEntity();
+        refund.setId(30L);
+        refund.setReference("RF-1");
+        CaseEntityIndex index = CaseEntityIndex.of(new CaseSnapshot(
+                List.of(), List.of(), List.of(), List.of(refund), List.of(remission1, remission2), List.of()));
+
+        assertEquals(List.of(remission1, remission2),
+                index.find(new Remission("HWF-1", null, null, null, null)));
+        assertTrue(index.find(new Remission(null, null, null, null, null)).isEmpty());
+        assertEquals(List.of(refund),
+                index.find(new Refund("RF-1", null, null, null, null, null, null, null, null)));
+        assertTrue(index.find(new Refund("RF-2", null, null, null, null, null, null, null, null)).isEmpty());
+    }
+
+    private static PaymentEntity payment(Long id, Long linkId, String reference) {
+        PaymentEntity payment = new PaymentEntity();
+        payment.setId(id);
+        payment.setPaymentLinkId(linkId);
+        payment.setReference(reference);
+        return payment;
+    }
+
+    private static PaymentFeeLinkEntity link(Long id, String paymentReference) {
+        PaymentFeeLinkEntity link = new PaymentFeeLinkEntity();
+        link.setId(id);
+        link.setPaymentReference(paymentReference);
+        return link;
+    }
+
+    private static Payment payment(Long id, String reference) {
+        return new Payment(id, reference, null, null, null, null, null, null, null, null, null, null, null, null, null,
+                List.of(), List.of());
+    }
+
+    private static ServiceRequest serviceRequest(Long id, String paymentReference) {
+        return new ServiceRequest(id, paymentReference, null, null, List.of(), List.of(), null, null, null, null, null);
+    }
+
+    private static RemissionEntity remission(Long id, String hwfReference) {
+        RemissionEntity remission = new RemissionEntity();
+        remission.setId(id);
+        remission.setHwfReference(hwfReference);
+        return remission;
+    }
+}
@@ -0,0 +1,292 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import uk.gov.hmcts.reform.dbtool.database.*;
+import uk.gov.hmcts.reform.dbtool.domain.CaseExecutionResult;
+import uk.gov.hmcts.reform.dbtool.domain.CasePatchRequest;
+import uk.gov.hmcts.reform.dbtool.service.CaseChangePlan.Move;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CaseExecutionServiceTest {
+
+    private static final String CCD = "1234567890123456";
+
+    @Mock
+    private CaseDiffService caseDiffService;
+
+    @Mock
+    private JdbcTemplate paymentJdbcTemplate;
+
+    @Mock
+    private JdbcTemplate refundsJdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager paymentTransactionManager;
+
+    @Mock
+    private PlatformTransactionManager refundTransactionManager;
+
+    @Mock
+    private TransactionStatus paymentStatus;
+
+    @Mock
+    private TransactionStatus refundStatus;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CasePatchRequest request = new CasePatchRequest(CCD, List.of());
+
+    private CaseExecutionService caseExecutionService;
+
+    @BeforeEach
+    void setUp() {
+        caseExecutionService = service(500, "");
+        when(paymentTransactionManager.getTransaction(any())).thenReturn(paymentStatus);
+    }
+
+    @Test
+    void testExecute_runsMovesThenDeletesAndCommitsRefundsFirst() {
+        when(refundTransactionManager.getTransaction(any())).thenReturn(refundStatus);
+        when(caseDiffService.findChanges(request, null, false)).thenReturn(Optional.of(plan()));
+        stubAllRowsChanged(paymentJdbcTemplate);
+        stubDeleted(paymentJdbcTemplate, "payment", List.of(deletedPayment()));
+        stubDeleted(paymentJdbcTemplate, "payment_fee_link", List.of(new PaymentFeeLinkEntity(), new PaymentFeeLinkEntity()));
+        stubDeleted(refundsJdbcTemplate, "refunds", List.of(deletedRefund()));
+
+        CaseExecutionResult result = caseExecutionService.execute(request, null).orElseThrow();
+
+        InOrder order = inOrder(paymentJdbcTemplate, refundsJdbcTemplate, refundTransactionManager,
+                paymentTransactionManager);
+        order.verify(paymentJdbcTemplate).batchUpdate(eq("UPDATE fee SET payment_link_id = ? WHERE id = ?"),
+                anyCollection(), eq(500), any());
+        order.verify(paymentJdbcTemplate).query(eq(deleteSql("payment")), any(PreparedStatementSetter.class),
+                any(RowMapper.class));
+        order.verify(paymentJdbcTemplate).query(eq(deleteSql("payment_fee_link")), any(PreparedStatementSetter.class),
+                any(RowMapper.class));
+        order.verify(refundsJdbcTemplate).query(eq(deleteSql("refunds")), any(PreparedStatementSetter.class),
+                any(RowMapper.class));
+        order.verify(refundTransactionManager).commit(refundStatus);
+        order.verify(paymentTransactionManager).commit(paymentStatus);
+
+        assertEquals(4, result.batches().size());
+        assertEquals("refunds", result.batches().get(3).database());
+        assertEquals(2, result.batches().get(2).rows());
+        assertEquals(1, result.summary().refundsToDelete());
+        assertEquals(1, result.summary().feesToMove());
+        assertFalse(result.paymentDatabaseRollbackSql().isEmpty());
+        assertTrue(result.refundsDatabaseRollbackSql().get(0).startsWith("INSERT INTO refunds"));
+        assertTrue(result.rollbackFiles().isEmpty());
+        assertEquals(4, meterRegistry.get(CaseExecutionService.BATCH_TIMER).timers().size());
+    }
+
+    @Test
+    void testExecute_rollbackIsBuiltFromTheReturnedRows() {
+        when(refundTransactionManager.getTransaction(any())).thenReturn(refundStatus);
+        when(caseDiffService.findChanges(request, null, false)).thenReturn(Optional.of(plan()));
+        stubAllRowsChanged(paymentJdbcTemplate);
+        stubDeleted(paymentJdbcTemplate, "payment", List.of(deletedPayment()));
+        stubDeleted(paymentJdbcTemplate, "payment_fee_link", List.of(new PaymentFeeLinkEntity(), new PaymentFeeLinkEntity()));
+        stubDeleted(refundsJdbcTemplate, "refunds", List.of(deletedRefund()));
+
+        CaseExecutionResult result = caseExecutionService.execute(request, null).orElseThrow();
+
+        // The planned rows lack these values; the rollback restores the rows as they were deleted
+        assertTrue(result.refundsDatabaseRollbackSql().get(0).contains("'Overpayment'"));
+        assertTrue(result.paymentDatabaseRollbackSql().stream().anyMatch(sql -> sql.contains("'RC-20-RETURNED'")));
+    }
+
+    @Test
+    void testExecute_writesEachDatabaseRollbackToTheRollbackDirectory(@TempDir Path rollbackDir) throws Exception {
+        caseExecutionService = service(1, rollbackDir.toString());
+        when(refundTransactionManager.getTransaction(any())).thenReturn(refundStatus);
+        when(caseDiffService.findChanges(request, null, false)).thenReturn(Optional.of(plan()));
+        stubAllRowsChanged(paymentJdbcTemplate);
+        stubDeleted(paymentJdbcTemplate, "payment", List.of(deletedPayment()));
+        // One id per statement: the two service requests are deleted in two round-trips
+        stubDeleted(paymentJdbcTemplate, "payment_fee_link", List.of(new PaymentFeeLinkEntity()));
+        stubDeleted(refundsJdbcTemplate, "refunds", List.of(deletedRefund()));
+
+        CaseExecutionResult result = caseExecutionService.execute(request, null).orElseThrow();
+
+        verify(paymentJdbcTemplate, times(2)).query(eq(deleteSql("payment_fee_link")),
+                any(PreparedStatementSetter.class), any(RowMapper.class));
+        assertEquals(2, result.rollbackFiles().size());
+        Path payments = Path.of(result.rollbackFiles().get(0));
+        Path refunds = Path.of(result.rollbackFiles().get(1));
+        assertEquals(rollbackDir, payments.getParent());
+        assertTrue(payments.getFileName().toString().startsWith(CCD + "-"));
+        assertTrue(payments.getFileName().toString().endsWith("-payments.sql"));
+        assertTrue(refunds.getFileName().toString().endsWith("-refunds.sql"));
+        List<String> lines = Files.readAllLines(refunds);
+        assertTrue(lines.get(0).startsWith("-- Rollback for CCD " + CCD + " on the refunds database"));
+        assertEquals(result.refundsDatabaseRollbackSql(), lines.subList(1, lines.size()));
+        assertEquals(result.paymentDatabaseRollbackSql().size() + 1, Files.readAllLines(payments).size());
+    }
+
+    @Test
+    void testExecute_deleteReturningFewerRowsThrowsConflict() {
+        when(caseDiffService.findChanges(request, null, false)).thenReturn(Optional.of(plan()));
+        stubAllRowsChanged(paymentJdbcTemplate);
+        // The payment was deleted by someone else after the plan was read
+        stubDeleted(paymentJdbcTemplate, "payment", List.of());
+
+        CaseExecutionException e = assertThrows(CaseExecutionException.class,
+                () -> caseExecutionService.execute(request, null));
+
+        assertTrue(e.getMessage().contains("DELETE payment changed 0 of 1 rows"));
+        verify(paymentTransactionManager).rollback(paymentStatus);
+        verifyNoInteractions(refundsJdbcTemplate, refundTransactionManager);
+    }
+
+    @Test
+    void testExecute_refundsFailureRollsBackPayments() {
+        when(refundTransactionManager.getTransaction(any())).thenReturn(refundStatus);
+        when(caseDiffService.findChanges(request, null, false)).thenReturn(Optional.of(plan()));
+        stubAllRowsChanged(paymentJdbcTemplate);
+        stubDeleted(paymentJdbcTemplate, "payment", List.of(deletedPayment()));
+        stubDeleted(paymentJdbcTemplate, "payment_fee_link", List.of(new PaymentFeeLinkEntity(), new PaymentFeeLinkEntity()));
+        when(refundsJdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenThrow(new DataIntegrityViolationException("refunds unavailable"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> caseExecutionService.execute(request, null));
+
+        verify(refundTransactionManager).rollback(refundStatus);
+        verify(paymentTransactionManager).rollback(paymentStatus);
+        verify(paymentTransactionManager, never()).commit(any());
+        verify(refundTransactionManager, never()).commit(any());
+    }
+
+    @Test
+    void testExecute_rowCountMismatchThrowsConflictAndRollsBack() {
+        when(caseDiffService.findChanges(request, null, false)).thenReturn(Optional.of(plan()));
+        // The fee was moved away by someone else after the plan was read
+        when(paymentJdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any()))
+                .thenReturn(new int[][]{{0}});
+
+        CaseExecutionException e = assertThrows(CaseExecutionException.class,
+                () -> caseExecutionService.execute(request, null));
+
+        assertTrue(e.getMessage().contains("UPDATE fee changed 0 of 1 rows"));
+        verify(paymentTransactionManager).rollback(paymentStatus);
+        verify(paymentTransactionManager, never()).commit(any());
+        verifyNoInteractions(refundsJdbcTemplate, refundTransactionManager);
+    }
+
+    @Test
+    void testExecute_caseNotFoundChangesNothing() {
+        when(caseDiffService.findChanges(request, null, false)).thenReturn(Optional.empty());
+
+        assertTrue(caseExecutionService.execute(request, null).isEmpty());
+
+        verifyNoInteractions(paymentJdbcTemplate, refundsJdbcTemplate, refundTransactionManager);
+    }
+
+    @Test
+    void testExecute_noChangesRunsNoBatches() {
+        when(refundTransactionManager.getTransaction(any())).thenReturn(refundStatus);
+        // The requested diff strategy plans the changes
+        when(caseDiffService.findChanges(request, CaseDiffStrategy.DATABASE, false)).thenReturn(Optional.of(
+                new CaseChangePlan(List.of(), List.of(), List.of(), List.of(), List.of(), List.of(),
+                        List.of(), List.of(), List.of(), List.of())));
+
+        CaseExecutionResult result = caseExecutionService.execute(request, CaseDiffStrategy.DATABASE).orElseThrow();
+
+        assertTrue(result.batches().isEmpty());
+        assertTrue(result.paymentDatabaseRollbackSql().isEmpty());
+        verifyNoInteractions(paymentJdbcTemplate, refundsJdbcTemplate);
+        verify(paymentTransactionManager).commit(paymentStatus);
+    }
+
+    private CaseExecutionService service(int batchSize, String rollbackDir) {
+        return new CaseExecutionService(caseDiffService, paymentJdbcTemplate, refundsJdbcTemplate,
+                paymentTransactionManager, refundTransactionManager, meterRegistry, batchSize, rollbackDir);
+    }
+
+    private static String deleteSql(String table) {
+        return "DELETE FROM " + table + " WHERE id = ANY(CAST(? AS bigint[])) RETURNING *";
+    }
+
+    private static void stubDeleted(JdbcTemplate jdbcTemplate, String table, List<?> rows) {
+        doReturn(rows).when(jdbcTemplate).query(eq(deleteSql(table)), any(PreparedStatementSetter.class),
+                any(RowMapper.class));
+    }
+
+    private static PaymentEntity deletedPayment() {
+        PaymentEntity payment = new PaymentEntity();
+        payment.setId(20L);
+        payment.setPaymentLinkId(2L);
+        payment.setReference("RC-20-RETURNED");
+        return payment;
+    }
+
+    private static RefundEntity deletedRefund() {
+        RefundEntity refund = new RefundEntity();
+        refund.setId(30L);
+        refund.setPaymentReference("RC-20");
+        refund.setReference("RF-30");
+        refund.setReason("Overpayment");
+        return refund;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void stubAllRowsChanged(JdbcTemplate jdbcTemplate) {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    int rows = invocation.getArgument(1, Collection.class).size();
+                    int[] counts = new int[rows];
+                    Arrays.fill(counts, 1);
+                    return new int[][]{counts};
+                });
+    }
+
+    private static CaseChangePlan plan() {
+        PaymentFeeLinkEntity link = new PaymentFeeLinkEntity();
+        link.setId(2L);
+        link.setCcdCaseNumber(CCD);
+        link.setPaymentReference("PAY-002");
+
+        PaymentFeeLinkEntity otherLink = new PaymentFeeLinkEntity();
+        otherLink.setId(3L);
+        otherLink.setCcdCaseNumber(CCD);
+        otherLink.setPaymentReference("PAY-003");
+
+        PaymentEntity payment = new PaymentEntity();
+        payment.setId(20L);
+        payment.setPaymentLinkId(2L);
+        payment.setReference("RC-20");
+
+        RefundEntity refund = new RefundEntity();
+        refund.setId(30L);
+        refund.setPaymentReference("RC-20");
+        refund.setReference("RF-30");
+
+        return new CaseChangePlan(
+                List.of(link, otherLink), List.of(), List.of(payment), List.of(), List.of(refund), List.of(),
+                List.of(new Move(10L, 2L, 1L)), List.of(), List.of(), List.of());
+    }
+}
@@ -0,0 +1,101 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uk.gov.hmcts.reform.dbtool.domain.Case;
+import uk.gov.hmcts.reform.dbtool.domain.CaseBatchResult;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CaseExportServiceTest {
+
+    @Mock
+    private JdbcTemplate paymentJdbcTemplate;
+
+    @Mock
+    private CaseQueryService caseQueryService;
+
+    private CaseExportService caseExportService;
+
+    @BeforeEach
+    void setUp() {
+        caseExportService = new CaseExportService(paymentJdbcTemplate, caseQueryService,
+            new ObjectMapper().registerModule(new JavaTimeModule()), 2);
+    }
+
+    @Test
+    void testExportNdjson_writesOneCasePerLineAPageAtATime() throws Exception {
+        // Keyset pages of two distinct CCDs; the short page is the last
+        when(paymentJdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+            .thenReturn(List.of("C1", "C2"), List.of("C3"));
+        when(caseQueryService.queryCasesByCcds(List.of("C1", "C2")))
+            .thenReturn(new CaseBatchResult(List.of(new Case("C1"), new Case("C2")), List.of()));
+        when(caseQueryService.queryCasesByCcds(List.of("C3")))
+            .thenReturn(new CaseBatchResult(List.of(new Case("C3")), List.of()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = caseExportService.exportNdjson(new CaseExportCriteria("C1", "C9", null, null), out);
+
+        assertEquals(3, written);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("{\"ccdCaseNumber\":\"C1\""));
+        assertTrue(lines[2].startsWith("{\"ccdCaseNumber\":\"C3\""));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(paymentJdbcTemplate, times(2)).queryForList(sql.capture(), eq(String.class), args.capture());
+        assertEquals("SELECT DISTINCT ccd_case_number FROM payment_fee_link WHERE ccd_case_number IS NOT NULL"
+            + " AND ccd_case_number >= ? AND ccd_case_number <= ? ORDER BY ccd_case_number LIMIT ?",
+            sql.getAllValues().get(0));
+        assertArrayEquals(new Object[] {"C1", "C9", 2}, args.getAllValues().get(0));
+        // The second page starts after the last CCD of the first
+        assertTrue(sql.getAllValues().get(1).endsWith(" AND ccd_case_number > ? ORDER BY ccd_case_number LIMIT ?"));
+        assertArrayEquals(new Object[] {"C1", "C9", "C2", 2}, args.getAllValues().get(1));
+    }
+
+    @Test
+    void testExportNdjson_fullLastPage_readsAnEmptyPageToFinish() {
+        when(paymentJdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+            .thenReturn(List.of("C1", "C2"), List.of());
+        when(caseQueryService.queryCasesByCcds(List.of("C1", "C2")))
+            .thenReturn(new CaseBatchResult(List.of(new Case("C1"), new Case("C2")), List.of()));
+
+        long written = caseExportService.exportNdjson(new CaseExportCriteria("C1", null, null, null),
+            new ByteArrayOutputStream());
+
+        assertEquals(2, written);
+        verify(caseQueryService, times(1)).queryCasesByCcds(anyList());
+    }
+
+    @Test
+    void testExportNdjson_emptyFirstPageWritesNothing() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = caseExportService.exportNdjson(new CaseExportCriteria(null, null, null, null), out);
+
+        assertEquals(0, written);
+        assertEquals(0, out.size());
+        verifyNoInteractions(caseQueryService);
+    }
+
+    @Test
+    void testCriteria_isBounded() {
+        assertFalse(new CaseExportCriteria(null, null, null, null).isBounded());
+        assertTrue(new CaseExportCriteria("1", null, null, null).isBounded());
+    }
+}
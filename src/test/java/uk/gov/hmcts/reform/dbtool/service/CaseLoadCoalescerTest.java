@@ -0,0 +1,175 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.hmcts.reform.dbtool.domain.Case;
+import uk.gov.hmcts.reform.dbtool.domain.CaseVersion;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaseLoadCoalescerTest {
+
+    private static final CaseLoadCoalescer.Key KEY =
+            new CaseLoadCoalescer.Key("111", CaseLoadStrategy.JDBC, CaseInclude.ALL, null);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CaseLoadCoalescer coalescer = new CaseLoadCoalescer(meterRegistry);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch loading = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentLoadsOfTheSameCase_shareOneLoadAndItsResult() throws Exception {
+        List<Case> cases = List.of(new Case("111"));
+        Future<List<Case>> first = executor.submit(() -> coalescer.load(KEY, () -> blockingLoad(cases)));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        Future<List<Case>> second = executor.submit(() -> coalescer.load(KEY, () -> fail("Joins the first load")));
+        awaitJoined(1);
+        release.countDown();
+
+        assertSame(cases, first.get(5, TimeUnit.SECONDS));
+        assertSame(cases, second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(1, count("false"));
+        assertEquals(1, count("true"));
+        assertEquals(0, meterRegistry.get(CaseLoadCoalescer.IN_FLIGHT_GAUGE).gauge().value());
+    }
+
+    @Test
+    void testLoadAfterTheInFlightOneFinished_loadsAgain() {
+        coalescer.load(KEY, () -> List.of(new Case("111")));
+        List<Case> fresh = List.of(new Case("111"));
+
+        assertSame(fresh, coalescer.load(KEY, () -> fresh));
+        assertEquals(2, count("false"));
+        assertEquals(0, count("true"));
+    }
+
+    @Test
+    void testDifferentIncludeSetsOrVersions_doNotCoalesce() throws Exception {
+        Future<List<Case>> full = executor.submit(() -> coalescer.load(KEY, () -> blockingLoad(List.of())));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        List<Case> partial = List.of(new Case("111"));
+        assertSame(partial, coalescer.load(new CaseLoadCoalescer.Key("111", CaseLoadStrategy.JDBC,
+                CaseInclude.resolve(List.of(CaseInclude.FEES)), null), () -> partial));
+        assertSame(partial, coalescer.load(new CaseLoadCoalescer.Key("111", CaseLoadStrategy.JDBC,
+                CaseInclude.ALL, new CaseVersion("111;1")), () -> partial));
+
+        release.countDown();
+        full.get(5, TimeUnit.SECONDS);
+        assertEquals(3, count("false"));
+    }
+
+    @Test
+    void testFailedLoad_failsTheRequestsThatJoinedIt() throws Exception {
+        CompletableFuture<List<Case>> first = CompletableFuture.supplyAsync(() -> coalescer.load(KEY, () -> {
+            blockingLoad(List.of());
+            throw new IllegalStateException("Database down");
+        }), executor);
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<List<Case>> second = CompletableFuture.supplyAsync(
+                () -> coalescer.load(KEY, () -> fail("Joins the first load")), executor);
+        awaitJoined(1);
+        release.countDown();
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> CaseQueryExecutor.join(second));
+        assertEquals("Database down", error.getMessage());
+        assertThrows(IllegalStateException.class, () -> CaseQueryExecutor.join(first));
+        // The failure is not remembered
+        assertTrue(coalescer.load(KEY, List::of).isEmpty());
+    }
+
+    @Test
+    void testConcurrentVersionReadsOfTheSameCase_shareOneRead() throws Exception {
+        CaseLoadCoalescer.VersionKey key = new CaseLoadCoalescer.VersionKey("111", CaseInclude.ALL);
+        Optional<CaseVersion> version = Optional.of(new CaseVersion("111;1"));
+        Future<Optional<CaseVersion>> first = executor.submit(() -> coalescer.readVersion(key, () -> {
+            blockingLoad(List.of());
+            return version;
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        Future<Optional<CaseVersion>> second = executor.submit(
+                () -> coalescer.readVersion(key, () -> fail("Joins the first read")));
+        awaitVersionReadsJoined(1);
+        // Another include set reads its own version
+        assertTrue(coalescer.readVersion(new CaseLoadCoalescer.VersionKey("111",
+                CaseInclude.resolve(List.of(CaseInclude.FEES))), Optional::empty).isEmpty());
+        release.countDown();
+
+        assertSame(version, first.get(5, TimeUnit.SECONDS));
+        assertSame(version, second.get(5, TimeUnit.SECONDS));
+        assertEquals(2, versionReads("false"));
+        assertEquals(0, count("false"), "Version reads are counted apart from case loads");
+    }
+
+    @Test
+    void testDisabled_loadsEveryTime() throws Exception {
+        ReflectionTestUtils.setField(coalescer, "enabled", false);
+        Future<List<Case>> first = executor.submit(() -> coalescer.load(KEY, () -> blockingLoad(List.of())));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        assertTrue(coalescer.load(KEY, List::of).isEmpty());
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(2, count("false"));
+        assertEquals(0, count("true"));
+    }
+
+    private List<Case> blockingLoad(List<Case> cases) {
+        loads.incrementAndGet();
+        loading.countDown();
+        try {
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return cases;
+    }
+
+    private void awaitJoined(int joined) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count("true") < joined && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(joined, count("true"));
+    }
+
+    private void awaitVersionReadsJoined(int joined) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (versionReads("true") < joined && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(joined, versionReads("true"));
+    }
+
+    private double versionReads(String coalesced) {
+        return meterRegistry.get(CaseLoadCoalescer.VERSION_READS_COUNTER).tag("coalesced", coalesced).counter().count();
+    }
+
+    private double count(String coalesced) {
+        return meterRegistry.get(CaseLoadCoalescer.LOADS_COUNTER).tag("coalesced", coalesced).counter().count();
+    }
+}
@@ -0,0 +1,60 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.dbtool.domain.*;
+import uk.gov.hmcts.reform.dbtool.timing.RequestTimings;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaseMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CaseMetrics caseMetrics = new CaseMetrics(meterRegistry);
+
+    @Test
+    void testMapToDomain_timesMappingAndRecordsEntityCountsPerCase() {
+        Fee fee = new Fee(1L, null, null, null, null, null, null, null, null,
+                List.of(new Remission("HWF-1", null, null, null, null)), null, null);
+        Payment payment = new Payment(1L, "RC-1", null, null, null, null, null, null, null, null, null, null, null,
+                null, null, List.of(), List.of(new Apportionment(1L, null, null, null, null, null, null)));
+        Case first = new Case("1");
+        first.addServiceRequest(new ServiceRequest(1L, null, null, null, List.of(fee), List.of(payment),
+                null, null, null, null, null));
+        Case second = new Case("2");
+
+        List<Case> cases = caseMetrics.mapToDomain(() -> List.of(first, second));
+
+        assertEquals(List.of(first, second), cases);
+        assertEquals(1, meterRegistry.get(CaseMetrics.MAP_TIMER).timer().count());
+        assertEquals(2, meterRegistry.get(CaseMetrics.ENTITY_SUMMARY).tag("entity", "fees").summary().count());
+        assertEquals(1, meterRegistry.get(CaseMetrics.ENTITY_SUMMARY).tag("entity", "remissions").summary().max());
+        assertEquals(1, meterRegistry.get(CaseMetrics.ENTITY_SUMMARY).tag("entity", "apportionments")
+                .summary().totalAmount());
+        assertEquals(0, meterRegistry.get(CaseMetrics.ENTITY_SUMMARY).tag("entity", "refunds").summary().max());
+    }
+
+    @Test
+    void testDiff_tagsTheStrategy() {
+        assertEquals("plan", caseMetrics.diff(CaseDiffStrategy.DATABASE, () -> "plan"));
+
+        assertEquals(1, meterRegistry.get(CaseMetrics.DIFF_TIMER).tag("strategy", "database").timer().count());
+    }
+
+    @Test
+    void testMapAndDiff_recordedAgainstTheRequest() {
+        RequestTimings timings = RequestTimings.bind();
+        try {
+            caseMetrics.mapToDomain(List::of);
+            caseMetrics.diff(CaseDiffStrategy.MEMORY, () -> "plan");
+
+            assertTrue(timings.serverTiming().startsWith("map;dur="));
+            assertTrue(timings.serverTiming().contains(", diff;dur="));
+        } finally {
+            RequestTimings.unbind();
+        }
+    }
+}
@@ -2,16 +2,25 @@ package uk.gov.hmcts.reform.dbtool.service;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
 import uk.gov.hmcts.reform.dbtool.database.*;
 import uk.gov.hmcts.reform.dbtool.domain.Case;
+import uk.gov.hmcts.reform.dbtool.domain.CaseBatchResult;
+import uk.gov.hmcts.reform.dbtool.domain.CaseVersion;
 import uk.gov.hmcts.reform.dbtool.mapper.CaseMapper;
 import uk.gov.hmcts.reform.dbtool.repository.*;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -20,6 +29,8 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class CaseQueryServiceTest {
 
+    private static final CaseVersion VERSION = new CaseVersion("1/2024-01-15 10:30:00");
+
     @Mock
     private PaymentFeeLinkRepository paymentFeeLinkRepository;
 
@@ -38,9 +49,32 @@ class CaseQueryServiceTest {
     @Mock
     private ApportionmentRepository apportionmentRepository;
 
+    @Mock
+    private CaseJsonRepository caseJsonRepository;
+
+    @Mock
+    private CaseProjectionRepository caseProjectionRepository;
+
+    @Mock
+    private CaseVersionRepository caseVersionRepository;
+
     @Mock
     private CaseMapper caseMapper;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private CaseQueryExecutor queryExecutor = new CaseQueryExecutor(Runnable::run, meterRegistry);
+
+    @Spy
+    private CaseRefundLoader caseRefundLoader = new CaseRefundLoader(queryExecutor);
+
+    @Spy
+    private CaseMetrics caseMetrics = new CaseMetrics(meterRegistry);
+
+    @Spy
+    private CaseLoadCoalescer caseLoadCoalescer = new CaseLoadCoalescer(meterRegistry);
+
     @InjectMocks
     private CaseQueryService caseQueryService;
 
@@ -90,7 +124,7 @@ class CaseQueryServiceTest {
             .thenReturn(List.of(mockCase));
 
         // Execute
-        List<Case> result = caseQueryService.queryCaseByCcd(ccd);
+        List<Case> result = caseQueryService.queryCaseByCcd(ccd, null, VERSION, CaseInclude.ALL);
 
         // Verify
         assertNotNull(result);
@@ -131,13 +165,59 @@ class CaseQueryServiceTest {
             .thenReturn(List.of(new Case(ccd)));
 
         // Execute
-        List<Case> result = caseQueryService.queryCaseByCcd(ccd);
+        List<Case> result = caseQueryService.queryCaseByCcd(ccd, null, VERSION, CaseInclude.ALL);
 
         // Verify
         assertNotNull(result);
         verify(refundRepository, never()).findByPaymentReferenceIn(any());
     }
 
+    @Test
+    void testQueryCaseByCcd_includePaymentsOnly_skipsOtherQueriesAndRefundsDatabase() {
+        String ccd = "1234567890123456";
+        CaseVersion version = new CaseVersion(ccd + ";1/");
+        PaymentFeeLinkEntity link = new PaymentFeeLinkEntity();
+        link.setId(1L);
+        link.setCcdCaseNumber(ccd);
+        PaymentEntity payment = new PaymentEntity();
+        payment.setId(1L);
+        payment.setReference("RC-123");
+
+        when(paymentFeeLinkRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of(link));
+        when(paymentRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of(payment));
+        when(caseMapper.mapToDomain(any(), any(), any(), any(), any(), any()))
+            .thenReturn(List.of(new Case(ccd)));
+
+        caseQueryService.queryCaseByCcd(ccd, CaseLoadStrategy.JPA, version,
+            CaseInclude.resolve(List.of(CaseInclude.PAYMENTS)));
+
+        verifyNoInteractions(feeRepository, remissionRepository, apportionmentRepository, refundRepository);
+        verify(caseMapper).mapToDomain(List.of(link), List.of(), List.of(payment), List.of(), List.of(), List.of());
+    }
+
+    @Test
+    void testCaseIncludeResolve_addsParentsOfNestedEntitySets() {
+        assertEquals(CaseInclude.ALL, CaseInclude.resolve(null));
+        assertEquals(CaseInclude.ALL, CaseInclude.resolve(List.of()));
+        assertEquals(Set.of(CaseInclude.PAYMENTS, CaseInclude.REFUNDS),
+            CaseInclude.resolve(List.of(CaseInclude.REFUNDS)));
+        assertEquals(Set.of(CaseInclude.FEES, CaseInclude.REMISSIONS, CaseInclude.PAYMENTS, CaseInclude.APPORTIONMENTS),
+            CaseInclude.resolve(List.of(CaseInclude.REMISSIONS, CaseInclude.APPORTIONMENTS)));
+    }
+
+    @Test
+    void testFindCaseVersion_partialIncludeSkipsRefundsAndGetsItsOwnVersion() {
+        String ccd = "1234567890123456";
+        when(caseVersionRepository.findCaseVersion(ccd, false)).thenReturn(Optional.of(new CaseVersion(ccd + ";1/")));
+        when(caseVersionRepository.findCaseVersion(ccd)).thenReturn(Optional.of(new CaseVersion(ccd + ";1/;0/")));
+
+        CaseVersion fees = caseQueryService.findCaseVersion(ccd, Set.of(CaseInclude.FEES)).orElseThrow();
+        CaseVersion all = caseQueryService.findCaseVersion(ccd, CaseInclude.ALL).orElseThrow();
+
+        assertNotEquals(fees.etag(), all.etag());
+        verify(caseVersionRepository, never()).findCaseVersion(ccd, true);
+    }
+
     @Test
     void testQueryCaseByCcd_multipleSources() {
         // Setup
@@ -180,11 +260,182 @@ class CaseQueryServiceTest {
             .thenReturn(List.of(new Case(ccd), new Case(ccd)));
 
         // Execute
-        List<Case> result = caseQueryService.queryCaseByCcd(ccd);
+        List<Case> result = caseQueryService.queryCaseByCcd(ccd, null, VERSION, CaseInclude.ALL);
 
         // Verify
         assertNotNull(result);
         assertEquals(2, result.size());
         verify(refundRepository).findByPaymentReferenceIn(List.of("RC-1", "RC-2"));
     }
+
+    @Test
+    void testQueryCaseByCcd_recordsLatencyPerQuery() {
+        // Setup
+        String ccd = "1234567890123456";
+
+        PaymentEntity payment = new PaymentEntity();
+        payment.setId(1L);
+        payment.setReference("RC-1");
+
+        when(paymentFeeLinkRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of());
+        when(feeRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of());
+        when(paymentRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of(payment));
+        when(remissionRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of());
+        when(apportionmentRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of());
+        when(refundRepository.findByPaymentReferenceIn(any())).thenReturn(List.of());
+        when(caseMapper.mapToDomain(any(), any(), any(), any(), any(), any())).thenReturn(List.of());
+
+        // Execute
+        caseQueryService.queryCaseByCcd(ccd, null, VERSION, CaseInclude.ALL);
+
+        // Verify
+        for (String table : List.of("payment_fee_link", "fee", "payment", "remission", "fee_pay_apportion")) {
+            assertEquals(1, meterRegistry.get("dbtool.case.query")
+                .tags("database", "payments", "table", table).timer().count(), table);
+        }
+        assertEquals(1, meterRegistry.get("dbtool.case.query")
+            .tags("database", "refunds", "table", "refunds").timer().count());
+    }
+
+    @Test
+    void testQueryCaseByCcd_propagatesRepositoryFailure() {
+        // Setup
+        String ccd = "1234567890123456";
+
+        when(paymentFeeLinkRepository.findByCcdCaseNumber(ccd)).thenThrow(new IllegalStateException("boom"));
+        when(feeRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of());
+        when(paymentRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of());
+        when(remissionRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of());
+        when(apportionmentRepository.findByCcdCaseNumber(ccd)).thenReturn(List.of());
+
+        // Execute & Verify
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> caseQueryService.queryCaseByCcd(ccd, null, VERSION, CaseInclude.ALL));
+        assertEquals("boom", e.getMessage());
+        verifyNoInteractions(caseMapper);
+    }
+
+    @Test
+    void testQueryCaseByCcd_jsonLoader_singlePaymentsQuery() {
+        // Setup
+        String ccd = "1234567890123456";
+
+        PaymentFeeLinkEntity link = new PaymentFeeLinkEntity();
+        link.setId(1L);
+        link.setCcdCaseNumber(ccd);
+
+        PaymentEntity payment = new PaymentEntity();
+        payment.setId(1L);
+        payment.setReference("RC-123");
+
+        RefundEntity refund = new RefundEntity();
+        refund.setId(1L);
+        refund.setPaymentReference("RC-123");
+
+        when(caseJsonRepository.findByCcdCaseNumber(ccd)).thenReturn(
+            new CaseSnapshot(List.of(link), List.of(), List.of(payment), List.of(), List.of(), List.of()));
+        when(refundRepository.findByPaymentReferenceIn(List.of("RC-123"))).thenReturn(List.of(refund));
+        when(caseMapper.mapToDomain(any(), any(), any(), any(), any(), any())).thenReturn(List.of(new Case(ccd)));
+
+        // Execute
+        List<Case> result = caseQueryService.queryCaseByCcd(ccd, CaseLoadStrategy.JSON, VERSION, CaseInclude.ALL);
+
+        // Verify
+        assertEquals(1, result.size());
+        verifyNoInteractions(paymentFeeLinkRepository, feeRepository, paymentRepository,
+            remissionRepository, apportionmentRepository);
+        verify(caseMapper).mapToDomain(
+            List.of(link), List.of(), List.of(payment), List.of(refund), List.of(), List.of());
+    }
+
+    @Test
+    void testQueryCasesByCcds_chunksAndKeepsRequestOrder() {
+        // Setup
+        ReflectionTestUtils.setField(caseQueryService, "batchChunkSize", 2);
+
+        PaymentEntity payment = new PaymentEntity();
+        payment.setId(1L);
+        payment.setCcdCaseNumber("C1");
+        payment.setReference("RC-1");
+
+        when(paymentFeeLinkRepository.findByCcdCaseNumberIn(any())).thenReturn(List.of());
+        when(feeRepository.findByCcdCaseNumberIn(any())).thenReturn(List.of());
+        when(paymentRepository.findByCcdCaseNumberIn(List.of("C3", "C1"))).thenReturn(List.of(payment));
+        when(paymentRepository.findByCcdCaseNumberIn(List.of("C2"))).thenReturn(List.of());
+        when(remissionRepository.findByCcdCaseNumberIn(any())).thenReturn(List.of());
+        when(apportionmentRepository.findByCcdCaseNumberIn(any())).thenReturn(List.of());
+        when(refundRepository.findByPaymentReferenceIn(List.of("RC-1"))).thenReturn(List.of());
+        when(caseMapper.mapToDomain(any(), any(), any(), any(), any(), any()))
+            .thenReturn(List.of(new Case("C1"), new Case("C3")))
+            .thenReturn(List.of());
+
+        // Execute
+        CaseBatchResult result = caseQueryService.queryCasesByCcds(List.of("C3", "C1", "C3", "C2"));
+
+        // Verify
+        assertEquals(List.of("C3", "C1"), result.cases().stream().map(Case::getCcdCaseNumber).toList());
+        assertEquals(List.of("C2"), result.notFound());
+        verify(paymentFeeLinkRepository).findByCcdCaseNumberIn(List.of("C3", "C1"));
+        verify(paymentFeeLinkRepository).findByCcdCaseNumberIn(List.of("C2"));
+        verify(refundRepository, times(1)).findByPaymentReferenceIn(any());
+        verify(paymentFeeLinkRepository, never()).findByCcdCaseNumber(any());
+    }
+
+    @Test
+    void testQueryCaseByCcd_jdbcLoader_usesProjectionsOnly() {
+        // Setup
+        String ccd = "1234567890123456";
+
+        PaymentFeeLinkEntity link = new PaymentFeeLinkEntity();
+        link.setId(1L);
+        link.setCcdCaseNumber(ccd);
+
+        PaymentEntity payment = new PaymentEntity();
+        payment.setId(1L);
+        payment.setReference("RC-123");
+
+        RefundEntity refund = new RefundEntity();
+        refund.setId(1L);
+        refund.setPaymentReference("RC-123");
+
+        when(caseProjectionRepository.findLinksByCcdCaseNumberIn(List.of(ccd))).thenReturn(List.of(link));
+        when(caseProjectionRepository.findFeesByCcdCaseNumberIn(List.of(ccd))).thenReturn(List.of());
+        when(caseProjectionRepository.findPaymentsByCcdCaseNumberIn(List.of(ccd))).thenReturn(List.of(payment));
+        when(caseProjectionRepository.findRemissionsByCcdCaseNumberIn(List.of(ccd))).thenReturn(List.of());
+        when(caseProjectionRepository.findApportionmentsByCcdCaseNumberIn(List.of(ccd))).thenReturn(List.of());
+        when(caseProjectionRepository.findRefundsByPaymentReferenceIn(List.of("RC-123"))).thenReturn(List.of(refund));
+        when(caseMapper.mapToDomain(any(), any(), any(), any(), any(), any())).thenReturn(List.of(new Case(ccd)));
+
+        // Execute
+        List<Case> result = caseQueryService.queryCaseByCcd(ccd, CaseLoadStrategy.JDBC, VERSION, CaseInclude.ALL);
+
+        // Verify
+        assertEquals(1, result.size());
+        verifyNoInteractions(paymentFeeLinkRepository, feeRepository, paymentRepository, refundRepository,
+            remissionRepository, apportionmentRepository, caseJsonRepository);
+        verify(caseMapper).mapToDomain(
+            List.of(link), List.of(), List.of(payment), List.of(refund), List.of(), List.of());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = CaseLoadStrategy.class, names = {"JDBC", "JSON"})
+    void testQueryCasesByCcds_jdbcOrJsonLoader_usesProjections(CaseLoadStrategy loader) {
+        // Setup: the json aggregate reads a single CCD, so batches use the projections
+        ReflectionTestUtils.setField(caseQueryService, "defaultLoadStrategy", loader);
+
+        when(caseProjectionRepository.findLinksByCcdCaseNumberIn(List.of("C1", "C2"))).thenReturn(List.of());
+        when(caseProjectionRepository.findFeesByCcdCaseNumberIn(any())).thenReturn(List.of());
+        when(caseProjectionRepository.findPaymentsByCcdCaseNumberIn(any())).thenReturn(List.of());
+        when(caseProjectionRepository.findRemissionsByCcdCaseNumberIn(any())).thenReturn(List.of());
+        when(caseProjectionRepository.findApportionmentsByCcdCaseNumberIn(any())).thenReturn(List.of());
+        when(caseMapper.mapToDomain(any(), any(), any(), any(), any(), any())).thenReturn(List.of(new Case("C2")));
+
+        // Execute
+        CaseBatchResult result = caseQueryService.queryCasesByCcds(List.of("C1", "C2"));
+
+        // Verify
+        assertEquals(List.of("C2"), result.cases().stream().map(Case::getCcdCaseNumber).toList());
+        assertEquals(List.of("C1"), result.notFound());
+        verifyNoInteractions(paymentFeeLinkRepository, paymentRepository, refundRepository, caseJsonRepository);
+    }
 }
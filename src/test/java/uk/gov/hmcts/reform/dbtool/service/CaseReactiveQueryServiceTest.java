@@ -0,0 +1,148 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import uk.gov.hmcts.reform.dbtool.database.PaymentEntity;
+import uk.gov.hmcts.reform.dbtool.database.RefundEntity;
+import uk.gov.hmcts.reform.dbtool.domain.Case;
+import uk.gov.hmcts.reform.dbtool.mapper.CaseMapper;
+import uk.gov.hmcts.reform.dbtool.repository.CaseReactiveRepository;
+import uk.gov.hmcts.reform.dbtool.timing.RequestTimings;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class CaseReactiveQueryServiceTest {
+
+    private static final List<String> CCDS = List.of("111");
+
+    private final CaseReactiveRepository repository = mock(CaseReactiveRepository.class);
+    private final CaseMapper caseMapper = mock(CaseMapper.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger paymentQueries = new AtomicInteger();
+
+    private CaseReactiveQueryService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CaseReactiveQueryService(repository, caseMapper, new CaseMetrics(meterRegistry), meterRegistry);
+        when(repository.findLinksByCcdCaseNumberIn(CCDS)).thenReturn(Mono.just(List.of()));
+        when(repository.findFeesByCcdCaseNumberIn(CCDS)).thenReturn(Mono.just(List.of()));
+        when(repository.findRemissionsByCcdCaseNumberIn(CCDS)).thenReturn(Mono.just(List.of()));
+        when(repository.findApportionmentsByCcdCaseNumberIn(CCDS)).thenReturn(Mono.just(List.of()));
+        when(caseMapper.mapToDomain(any(), any(), any(), any(), any(), any())).thenReturn(List.of(new Case("111")));
+    }
+
+    @AfterEach
+    void unbind() {
+        RequestTimings.unbind();
+    }
+
+    @Test
+    void testPaymentReferenceLookup_queriesPaymentsOnceAndRefundsByTheirReferences() {
+        givenPayments(payment("RC-1"), payment(null));
+        RefundEntity refund = refund("RC-1");
+        when(repository.findRefundsByPaymentReferenceIn(List.of("RC-1"))).thenReturn(Mono.just(List.of(refund)));
+
+        List<Case> cases = service.queryCaseByCcd("111").block();
+
+        assertEquals("111", cases.get(0).getCcdCaseNumber());
+        assertEquals(1, paymentQueries.get(), "The refunds lookup shares the payments query");
+        verify(caseMapper).mapToDomain(any(), any(), argThat(payments -> payments.size() == 2),
+                eq(List.of(refund)), any(), any());
+        verify(repository, never()).findRefundsByCcdCaseNumberIn(anyList());
+        assertEquals(1, meterRegistry.get(CaseQueryExecutor.QUERY_TIMER)
+                .tag("database", "refunds").tag("table", "refunds").timer().count());
+        assertEquals(1, meterRegistry.get(CaseMetrics.MAP_TIMER).timer().count());
+    }
+
+    @Test
+    void testCcdLookup_keepsOnlyRefundsOnTheCasePayments() {
+        ReflectionTestUtils.setField(service, "refundLookup", RefundLookup.CCD);
+        ReflectionTestUtils.setField(service, "refundOrphans", false);
+        givenPayments(payment("RC-1"));
+        RefundEntity onCasePayment = refund("RC-1");
+        when(repository.findRefundsByCcdCaseNumberIn(CCDS))
+                .thenReturn(Mono.just(List.of(onCasePayment, refund("RC-OTHER"))));
+
+        service.queryCaseByCcd("111").block();
+
+        verify(caseMapper).mapToDomain(any(), any(), any(), eq(List.of(onCasePayment)), any(), any());
+        verify(repository, never()).findOrphanRefundsByPaymentReferenceIn(anyList(), anyList());
+        assertEquals(1, paymentQueries.get());
+    }
+
+    @Test
+    void testCcdLookup_withOrphans_addsRefundsRecordedUnderNoOrAnotherCcd() {
+        ReflectionTestUtils.setField(service, "refundLookup", RefundLookup.CCD);
+        givenPayments(payment("RC-1"), payment("RC-2"));
+        RefundEntity byCcd = refund("RC-1");
+        RefundEntity orphan = refund("RC-2");
+        when(repository.findRefundsByCcdCaseNumberIn(CCDS)).thenReturn(Mono.just(List.of(byCcd)));
+        when(repository.findOrphanRefundsByPaymentReferenceIn(List.of("RC-1", "RC-2"), CCDS))
+                .thenReturn(Mono.just(List.of(orphan)));
+
+        service.queryCaseByCcd("111").block();
+
+        verify(caseMapper).mapToDomain(any(), any(), any(), eq(List.of(byCcd, orphan)), any(), any());
+    }
+
+    @Test
+    void testChunksLongInListsAndKeepsTheirOrder() {
+        ReflectionTestUtils.setField(service, "batchChunkSize", 2);
+        givenPayments(payment("RC-1"), payment("RC-2"), payment("RC-3"));
+        RefundEntity first = refund("RC-1");
+        RefundEntity last = refund("RC-3");
+        when(repository.findRefundsByPaymentReferenceIn(List.of("RC-1", "RC-2")))
+                .thenReturn(Mono.just(List.of(first)));
+        when(repository.findRefundsByPaymentReferenceIn(List.of("RC-3"))).thenReturn(Mono.just(List.of(last)));
+
+        service.queryCaseByCcd("111").block();
+
+        verify(caseMapper).mapToDomain(any(), any(), any(), eq(List.of(first, last)), any(), any());
+    }
+
+    @Test
+    void testRecordsQueriesAndMappingAgainstTheRequestThatAssembledThem() {
+        givenPayments();
+        RequestTimings timings = RequestTimings.bind();
+        Mono<List<Case>> cases = service.queryCaseByCcd("111");
+        RequestTimings.unbind();
+
+        cases.block();
+
+        String header = timings.serverTiming();
+        assertTrue(header.startsWith("payments-db;dur="), header);
+        assertTrue(header.contains("desc=\"5 calls\""), header);
+        assertTrue(header.contains(", map;dur="), header);
+        assertFalse(header.contains("refunds-db"), "No payments, so no refunds query: " + header);
+    }
+
+    private void givenPayments(PaymentEntity... payments) {
+        when(repository.findPaymentsByCcdCaseNumberIn(CCDS)).thenReturn(Mono.fromSupplier(() -> {
+            paymentQueries.incrementAndGet();
+            return List.of(payments);
+        }));
+    }
+
+    private static PaymentEntity payment(String reference) {
+        PaymentEntity payment = new PaymentEntity();
+        payment.setReference(reference);
+        return payment;
+    }
+
+    private static RefundEntity refund(String paymentReference) {
+        RefundEntity refund = new RefundEntity();
+        refund.setPaymentReference(paymentReference);
+        return refund;
+    }
+}
@@ -0,0 +1,105 @@
+package uk.gov.hmcts.reform.dbtool.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.hmcts.reform.dbtool.database.PaymentEntity;
+import uk.gov.hmcts.reform.dbtool.database.RefundEntity;
+import uk.gov.hmcts.reform.dbtool.service.CaseRefundLoader.RefundQueries;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaseRefundLoaderTest {
+
+    private final List<String> calls = new ArrayList<>();
+    private CaseRefundLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        loader = new CaseRefundLoader(new CaseQueryExecutor(Runnable::run, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void testPaymentReferenceLookup_waitsForPaymentsAndSkipsNullReferences() {
+        CompletableFuture<List<PaymentEntity>> payments = new CompletableFuture<>();
+        RefundEntity refund = refund(1L, "RC-1");
+        RefundQueries queries = new RefundQueries(refs -> {
+            calls.add("byReference " + refs);
+            return List.of(refund);
+        }, ccds -> fail("Not looked up by CCD"), (refs, ccds) -> fail("No orphan query"));
+
+        CompletableFuture<List<RefundEntity>> refunds = loader.fetchRefunds(List.of("111"), payments, queries);
+
+        assertTrue(calls.isEmpty());
+        payments.complete(List.of(payment("RC-1"), payment(null)));
+        assertEquals(List.of(refund), refunds.join());
+        assertEquals(List.of("byReference [RC-1]"), calls);
+    }
+
+    @Test
+    void testCcdLookup_queriesBeforePaymentsLoadAndKeepsOnlyCasePaymentRefunds() {
+        ReflectionTestUtils.setField(loader, "refundLookup", RefundLookup.CCD);
+        CompletableFuture<List<PaymentEntity>> payments = new CompletableFuture<>();
+        RefundEntity onCasePayment = refund(1L, "RC-1");
+        RefundEntity onOtherPayment = refund(2L, "RC-OTHER");
+        RefundEntity orphan = refund(3L, "RC-2");
+        RefundQueries queries = new RefundQueries(refs -> fail("Not looked up by reference"), ccds -> {
+            calls.add("byCcd " + ccds);
+            return List.of(onCasePayment, onOtherPayment);
+        }, (refs, ccds) -> {
+            calls.add("orphans " + refs + " " + ccds);
+            return List.of(orphan);
+        });
+
+        CompletableFuture<List<RefundEntity>> refunds = loader.fetchRefunds(List.of("111"), payments, queries);
+
+        assertEquals(List.of("byCcd [111]"), calls, "The CCD query does not wait for the payments");
+        payments.complete(List.of(payment("RC-1"), payment("RC-2")));
+        assertEquals(List.of(onCasePayment, orphan), refunds.join());
+        assertEquals(List.of("byCcd [111]", "orphans [RC-1, RC-2] [111]"), calls);
+    }
+
+    @Test
+    void testCcdLookup_withoutOrphansOrPaymentReferences_runsOnlyTheCcdQuery() {
+        ReflectionTestUtils.setField(loader, "refundLookup", RefundLookup.CCD);
+        RefundQueries queries = new RefundQueries(refs -> fail("Not looked up by reference"),
+                ccds -> List.of(refund(1L, "RC-1")), (refs, ccds) -> fail("No orphan query"));
+
+        assertEquals(1, loader.fetchRefunds(List.of("111"),
+                CompletableFuture.completedFuture(List.of(payment("RC-1"))), queries, false).join().size());
+        assertTrue(loader.fetchRefunds(List.of("111"),
+                CompletableFuture.completedFuture(List.of(payment(null))), queries, true).join().isEmpty());
+    }
+
+    @Test
+    void testChunksLongInLists() {
+        ReflectionTestUtils.setField(loader, "batchChunkSize", 2);
+        RefundQueries queries = new RefundQueries(refs -> {
+            calls.add("byReference " + refs);
+            return List.of();
+        }, ccds -> fail("Not looked up by CCD"), (refs, ccds) -> fail("No orphan query"));
+
+        loader.fetchRefunds(List.of("111"), CompletableFuture.completedFuture(
+                List.of(payment("RC-1"), payment("RC-2"), payment("RC-3"))), queries).join();
+
+        assertEquals(List.of("byReference [RC-1, RC-2]", "byReference [RC-3]"), calls);
+    }
+
+    private static PaymentEntity payment(String reference) {
+        PaymentEntity payment = new PaymentEntity();
+        payment.setReference(reference);
+        return payment;
+    }
+
+    private static RefundEntity refund(Long id, String paymentReference) {
+        RefundEntity refund = new RefundEntity();
+        refund.setId(id);
+        refund.setPaymentReference(paymentReference);
+        return refund;
+    }
+}
@@ -0,0 +1,245 @@
+package uk.gov.hmcts.reform.dbtool.sql;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import uk.gov.hmcts.reform.dbtool.database.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Templates must reproduce the String.format output byte-for-byte
+ */
+class CaseSqlTemplatesTest {
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    static Stream<LocalDateTime> timestamps() {
+        return Stream.of(
+            LocalDateTime.of(2024, 1, 15, 10, 30),
+            LocalDateTime.of(2024, 1, 15, 0, 0, 5),
+            LocalDateTime.of(2024, 12, 31, 23, 59, 59, 120_000_000),
+            LocalDateTime.of(2024, 1, 15, 10, 30, 0, 123_456_000),
+            LocalDateTime.of(2024, 1, 15, 10, 30, 0, 1),
+            LocalDateTime.of(5, 3, 7, 1, 2, 3),
+            LocalDateTime.of(12345, 1, 1, 0, 0),
+            LocalDateTime.of(-44, 3, 15, 12, 0));
+    }
+
+    @ParameterizedTest
+    @MethodSource("timestamps")
+    void testTimestamps_matchLegacyFormat(LocalDateTime time) {
+        PaymentFeeLinkEntity link = new PaymentFeeLinkEntity();
+        link.setId(1L);
+        link.setDateCreated(time);
+        link.setDateUpdated(time);
+
+        assertEquals(LegacySqlFormat.generateInsertSql(link),
+            CaseSqlTemplates.PAYMENT_FEE_LINK_INSERT.render(buffer, link));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "'", "''", "O'Brien", "'quoted'", "no quotes", "d'Artagnan's", "été 'x'"})
+    void testStrings_matchLegacyEscaping(String value) {
+        PaymentFeeLinkEntity link = new PaymentFeeLinkEntity();
+        link.setId(1L);
+        link.setPaymentReference(value);
+        link.setCaseReference(value);
+
+        assertEquals(LegacySqlFormat.generateInsertSql(link),
+            CaseSqlTemplates.PAYMENT_FEE_LINK_INSERT.render(buffer, link));
+    }
+
+    @Test
+    void testAllNullColumns_matchLegacyFormat() {
+        assertAllMatch(new PaymentFeeLinkEntity(), new FeeEntity(), new PaymentEntity(),
+            new RemissionEntity(), new ApportionmentEntity(), new RefundEntity());
+    }
+
+    @Test
+    void testPopulatedEntities_matchLegacyFormat() {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 15, 10, 30, 0, 123_456_000);
+        BigDecimal amount = new BigDecimal("1E+3");
+
+        PaymentFeeLinkEntity link = new PaymentFeeLinkEntity();
+        link.setId(1L);
+        link.setDateCreated(time);
+        link.setDateUpdated(time);
+        link.setPaymentReference("2024-1");
+        link.setOrgId("ORG'1");
+        link.setEnterpriseServiceName("Divorce");
+        link.setCcdCaseNumber("1234");
+        link.setCaseReference("REF-1");
+        link.setServiceRequestCallbackUrl("http://cb/1");
+
+        FeeEntity fee = new FeeEntity();
+        fee.setId(2L);
+        fee.setCode("FEE0001");
+        fee.setVersion("1");
+        fee.setPaymentLinkId(1L);
+        fee.setCalculatedAmount(amount);
+        fee.setVolume(3);
+        fee.setCcdCaseNumber("1234");
+        fee.setReference("FR'1");
+        fee.setNetAmount(new BigDecimal("-0.50"));
+        fee.setFeeAmount(new BigDecimal("100.00"));
+        fee.setAmountDue(BigDecimal.ZERO);
+        fee.setDateCreated(time);
+        fee.setDateUpdated(time.plusSeconds(1));
+
+        PaymentEntity payment = new PaymentEntity();
+        payment.setId(3L);
+        payment.setAmount(new BigDecimal("99.99"));
+        payment.setCaseReference("REF-1");
+        payment.setCcdCaseNumber("1234");
+        payment.setCurrency("GBP");
+        payment.setDateCreated(time);
+        payment.setDateUpdated(time);
+        payment.setDescription("It's paid");
+        payment.setServiceType("Divorce");
+        payment.setSiteId("AA07");
+        payment.setUserId("u1");
+        payment.setPaymentChannel("online");
+        payment.setPaymentMethod("card");
+        payment.setPaymentProvider("gov pay");
+        payment.setPaymentStatus("success");
+        payment.setPaymentLinkId(1L);
+        payment.setCustomerReference("C1");
+        payment.setExternalReference("E1");
+        payment.setOrganisationName("O'Brien & Sons");
+        payment.setPbaNumber("PBA1");
+        payment.setReference("RC-1");
+        payment.setGiroSlipNo("G1");
+        payment.setS2sServiceName("ccd_gw");
+        payment.setReportedDateOffline(time.minusDays(1));
+        payment.setServiceCallbackUrl("http://cb/p");
+        payment.setDocumentControlNumber("DCN1");
+        payment.setBankedDate(LocalDateTime.of(2024, 2, 1, 0, 0));
+        payment.setPayerName("Pat O'Neill");
+        payment.setInternalReference("I1");
+
+        RemissionEntity remission = new RemissionEntity();
+        remission.setId(4L);
+        remission.setFeeId(2L);
+        remission.setHwfReference("HWF-1");
+        remission.setHwfAmount(new BigDecimal("25"));
+        remission.setBeneficiaryName("Ben'");
+        remission.setCcdCaseNumber("1234");
+        remission.setCaseReference("REF-1");
+        remission.setPaymentLinkId(1L);
+        remission.setSiteId("AA07");
+        remission.setDateCreated(time);
+        remission.setDateUpdated(time);
+        remission.setRemissionReference("RM-1");
+
+        ApportionmentEntity apportionment = new ApportionmentEntity();
+        apportionment.setId(5L);
+        apportionment.setPaymentId(3L);
+        apportionment.setFeeId(2L);
+        apportionment.setPaymentLinkId(1L);
+        apportionment.setFeeAmount(new BigDecimal("100.00"));
+        apportionment.setPaymentAmount(new BigDecimal("99.99"));
+        apportionment.setApportionAmount(new BigDecimal("99.99"));
+        apportionment.setCcdCaseNumber("1234");
+        apportionment.setApportionType("AUTO");
+        apportionment.setCallSurplusAmount(BigDecimal.ZERO);
+        apportionment.setCreatedBy("system");
+        apportionment.setDateCreated(time);
+        apportionment.setDateUpdated(time);
+
+        RefundEntity refund = new RefundEntity();
+        refund.setId(6L);
+        refund.setDateCreated(time);
+        refund.setDateUpdated(time);
+        refund.setAmount(new BigDecimal("10.00"));
+        refund.setReason("Customer's request");
+        refund.setRefundStatus("Approved");
+        refund.setReference("RF-1");
+        refund.setPaymentReference("RC-1");
+        refund.setCreatedBy("a");
+        refund.setUpdatedBy("b");
+        refund.setCcdCaseNumber("1234");
+        refund.setFeeIds("2");
+        refund.setNotificationSentFlag("SENT");
+        refund.setContactDetails("{\"name\":\"O'Neill\"}");
+        refund.setServiceType("Divorce");
+        refund.setRefundInstructionType("RefundWhenContacted");
+
+        assertAllMatch(link, fee, payment, remission, apportionment, refund);
+    }
+
+    @Test
+    void testDeleteAndUpdate_matchLegacyFormat() {
+        assertEquals(LegacySqlFormat.generateDeleteSql("fee", "id", 42L),
+            CaseSqlTemplates.delete(buffer, "fee", "id", 42L));
+        assertEquals(LegacySqlFormat.generateDeleteSql("fee", "id", null),
+            CaseSqlTemplates.delete(buffer, "fee", "id", null));
+        assertEquals(LegacySqlFormat.generateUpdateSql("payment", "id", 7L, "payment_link_id", 2L),
+            CaseSqlTemplates.update(buffer, "payment", "id", 7L, "payment_link_id", 2L));
+        assertEquals(LegacySqlFormat.generateUpdateSql("payment", "id", 7L, "payment_link_id", null),
+            CaseSqlTemplates.update(buffer, "payment", "id", 7L, "payment_link_id", null));
+    }
+
+    @Test
+    void testRenderRows_combinesSingleRowStatements() {
+        FeeEntity fee1 = new FeeEntity();
+        fee1.setId(1L);
+        fee1.setCode("O'K");
+        FeeEntity fee2 = new FeeEntity();
+        fee2.setId(2L);
+
+        String single1 = CaseSqlTemplates.FEE_INSERT.render(buffer, fee1);
+        String single2 = CaseSqlTemplates.FEE_INSERT.render(buffer, fee2);
+        String multi = CaseSqlTemplates.FEE_INSERT.renderRows(buffer, List.of(fee1, fee2));
+
+        String tuple2 = single2.substring(single2.indexOf("VALUES ") + "VALUES ".length(), single2.length() - 1);
+        assertEquals(single1.substring(0, single1.length() - 1) + ", " + tuple2 + ";", multi);
+        assertEquals("DELETE FROM fee WHERE id IN (1, 2);", CaseSqlTemplates.deleteIn(buffer, "fee", "id", List.of(1L, 2L)));
+        assertEquals("UPDATE fee SET payment_link_id = 3 WHERE id = ANY(ARRAY[1, 2]);",
+            CaseSqlTemplates.updateAny(buffer, "fee", "id", List.of(1L, 2L), "payment_link_id", 3L));
+    }
+
+    @Test
+    void testRenderRows_rejectsNonInsertStatements() {
+        SqlTemplate<FeeEntity> template = SqlTemplate.compile("DELETE FROM fee WHERE id = ?;",
+            SqlValue.id(FeeEntity::getId));
+
+        assertThrows(IllegalStateException.class, () -> template.renderRows(buffer, List.of(new FeeEntity())));
+    }
+
+    @Test
+    void testCompile_rejectsPlaceholderMismatch() {
+        assertThrows(IllegalArgumentException.class,
+            () -> SqlTemplate.compile("DELETE FROM fee WHERE id = ? AND code = ?;", SqlValue.id(FeeEntity::getId)));
+    }
+
+    @Test
+    void testAppendTo_appendsWithoutClearingBuffer() {
+        FeeEntity fee = new FeeEntity();
+        fee.setId(1L);
+        SqlTemplate<FeeEntity> template = SqlTemplate.compile("DELETE FROM fee WHERE id = ?;",
+            SqlValue.id(FeeEntity::getId));
+
+        buffer.append("BEGIN; ");
+        template.appendTo(buffer, fee);
+
+        assertEquals("BEGIN; DELETE FROM fee WHERE id = 1;", buffer.toString());
+    }
+
+    private void assertAllMatch(PaymentFeeLinkEntity link, FeeEntity fee, PaymentEntity payment,
+                                RemissionEntity remission, ApportionmentEntity apportionment, RefundEntity refund) {
+        assertEquals(LegacySqlFormat.generateInsertSql(link), CaseSqlTemplates.PAYMENT_FEE_LINK_INSERT.render(buffer, link));
+        assertEquals(LegacySqlFormat.generateInsertSql(fee), CaseSqlTemplates.FEE_INSERT.render(buffer, fee));
+        assertEquals(LegacySqlFormat.generateInsertSql(payment), CaseSqlTemplates.PAYMENT_INSERT.render(buffer, payment));
+        assertEquals(LegacySqlFormat.generateInsertSql(remission), CaseSqlTemplates.REMISSION_INSERT.render(buffer, remission));
+        assertEquals(LegacySqlFormat.generateInsertSql(apportionment),
+            CaseSqlTemplates.APPORTIONMENT_INSERT.render(buffer, apportionment));
+        assertEquals(LegacySqlFormat.generateInsertSql(refund), CaseSqlTemplates.REFUND_INSERT.render(buffer, refund));
+    }
+}
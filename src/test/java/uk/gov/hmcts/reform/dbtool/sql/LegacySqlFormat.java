@@ -0,0 +1,192 @@
+package uk.gov.hmcts.reform.dbtool.sql;
+
+import uk.gov.hmcts.reform.dbtool.database.*;
+
+/**
+ * The original String.format statement generation, kept as the reference output for
+ * {@link CaseSqlTemplates} and as the baseline in the SQL generation benchmark.
+ */
+public final class LegacySqlFormat {
+
+    private LegacySqlFormat() {
+    }
+
+    public static String generateDeleteSql(String tableName, String idColumn, Long id) {
+        return String.format("DELETE FROM %s WHERE %s = %d;", tableName, idColumn, id);
+    }
+
+    public static String generateUpdateSql(String tableName, String idColumn, Long id, String updateColumn, Long newValue) {
+        return String.format("UPDATE %s SET %s = %d WHERE %s = %d;",
+                tableName, updateColumn, newValue, idColumn, id);
+    }
+
+    public static String generateInsertSql(PaymentFeeLinkEntity entity) {
+        return String.format(
+            "INSERT INTO payment_fee_link (id, date_created, date_updated, payment_reference, org_id, "
+            + "enterprise_service_name, ccd_case_number, case_reference, service_request_callback_url) "
+            + "VALUES (%d, %s, %s, %s, %s, %s, %s, %s, %s);",
+            entity.getId(),
+            formatTimestamp(entity.getDateCreated()),
+            formatTimestamp(entity.getDateUpdated()),
+            formatString(entity.getPaymentReference()),
+            formatString(entity.getOrgId()),
+            formatString(entity.getEnterpriseServiceName()),
+            formatString(entity.getCcdCaseNumber()),
+            formatString(entity.getCaseReference()),
+            formatString(entity.getServiceRequestCallbackUrl())
+        );
+    }
+
+    public static String generateInsertSql(FeeEntity entity) {
+        return String.format(
+            "INSERT INTO fee (id, code, version, payment_link_id, calculated_amount, volume, ccd_case_number, "
+            + "reference, net_amount, fee_amount, amount_due, date_created, date_updated) "
+            + "VALUES (%d, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s);",
+            entity.getId(),
+            formatString(entity.getCode()),
+            formatString(entity.getVersion()),
+            formatLong(entity.getPaymentLinkId()),
+            formatBigDecimal(entity.getCalculatedAmount()),
+            formatInteger(entity.getVolume()),
+            formatString(entity.getCcdCaseNumber()),
+            formatString(entity.getReference()),
+            formatBigDecimal(entity.getNetAmount()),
+            formatBigDecimal(entity.getFeeAmount()),
+            formatBigDecimal(entity.getAmountDue()),
+            formatTimestamp(entity.getDateCreated()),
+            formatTimestamp(entity.getDateUpdated())
+        );
+    }
+
+    public static String generateInsertSql(PaymentEntity entity) {
+        return String.format(
+            "INSERT INTO payment (id, amount, case_reference, ccd_case_number, currency, date_created, date_updated, "
+            + "description, service_type, site_id, user_id, payment_channel, payment_method, payment_provider, "
+            + "payment_status, payment_link_id, customer_reference, external_reference, organisation_name, "
+            + "pba_number, reference, giro_slip_no, s2s_service_name, reported_date_offline, service_callback_url, "
+            + "document_control_number, banked_date, payer_name, internal_reference) "
+            + "VALUES (%d, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s);",
+            entity.getId(),
+            formatBigDecimal(entity.getAmount()),
+            formatString(entity.getCaseReference()),
+            formatString(entity.getCcdCaseNumber()),
+            formatString(entity.getCurrency()),
+            formatTimestamp(entity.getDateCreated()),
+            formatTimestamp(entity.getDateUpdated()),
+            formatString(entity.getDescription()),
+            formatString(entity.getServiceType()),
+            formatString(entity.getSiteId()),
+            formatString(entity.getUserId()),
+            formatString(entity.getPaymentChannel()),
+            formatString(entity.getPaymentMethod()),
+            formatString(entity.getPaymentProvider()),
+            formatString(entity.getPaymentStatus()),
+            formatLong(entity.getPaymentLinkId()),
+            formatString(entity.getCustomerReference()),
+            formatString(entity.getExternalReference()),
+            formatString(entity.getOrganisationName()),
+            formatString(entity.getPbaNumber()),
+            formatString(entity.getReference()),
+            formatString(entity.getGiroSlipNo()),
+            formatString(entity.getS2sServiceName()),
+            formatTimestamp(entity.getReportedDateOffline()),
+            formatString(entity.getServiceCallbackUrl()),
+            formatString(entity.getDocumentControlNumber()),
+            formatTimestamp(entity.getBankedDate()),
+            formatString(entity.getPayerName()),
+            formatString(entity.getInternalReference())
+        );
+    }
+
+    public static String generateInsertSql(RemissionEntity entity) {
+        return String.format(
+            "INSERT INTO remission (id, fee_id, hwf_reference, hwf_amount, beneficiary_name, ccd_case_number, "
+            + "case_reference, payment_link_id, site_id, date_created, date_updated, remission_reference) "
+            + "VALUES (%d, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s);",
+            entity.getId(),
+            formatLong(entity.getFeeId()),
+            formatString(entity.getHwfReference()),
+            formatBigDecimal(entity.getHwfAmount()),
+            formatString(entity.getBeneficiaryName()),
+            formatString(entity.getCcdCaseNumber()),
+            formatString(entity.getCaseReference()),
+            formatLong(entity.getPaymentLinkId()),
+            formatString(entity.getSiteId()),
+            formatTimestamp(entity.getDateCreated()),
+            formatTimestamp(entity.getDateUpdated()),
+            formatString(entity.getRemissionReference())
+        );
+    }
+
+    public static String generateInsertSql(ApportionmentEntity entity) {
+        return String.format(
+            "INSERT INTO fee_pay_apportion (id, payment_id, fee_id, payment_link_id, fee_amount, payment_amount, "
+            + "apportion_amount, ccd_case_number, apportion_type, call_surplus_amount, created_by, date_created, date_updated) "
+            + "VALUES (%d, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s);",
+            entity.getId(),
+            formatLong(entity.getPaymentId()),
+            formatLong(entity.getFeeId()),
+            formatLong(entity.getPaymentLinkId()),
+            formatBigDecimal(entity.getFeeAmount()),
+            formatBigDecimal(entity.getPaymentAmount()),
+            formatBigDecimal(entity.getApportionAmount()),
+            formatString(entity.getCcdCaseNumber()),
+            formatString(entity.getApportionType()),
+            formatBigDecimal(entity.getCallSurplusAmount()),
+            formatString(entity.getCreatedBy()),
+            formatTimestamp(entity.getDateCreated()),
+            formatTimestamp(entity.getDateUpdated())
+        );
+    }
+
+    public static String generateInsertSql(RefundEntity entity) {
+        return String.format(
+            "INSERT INTO refunds (id, date_created, date_updated, amount, reason, refund_status, reference, "
+            + "payment_reference, created_by, updated_by, ccd_case_number, fee_ids, notification_sent_flag, "
+            + "contact_details, service_type, refund_instruction_type) "
+            + "VALUES (%d, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s);",
+            entity.getId(),
+            formatTimestamp(entity.getDateCreated()),
+            formatTimestamp(entity.getDateUpdated()),
+            formatBigDecimal(entity.getAmount()),
+            formatString(entity.getReason()),
+            formatString(entity.getRefundStatus()),
+            formatString(entity.getReference()),
+            formatString(entity.getPaymentReference()),
+            formatString(entity.getCreatedBy()),
+            formatString(entity.getUpdatedBy()),
+            formatString(entity.getCcdCaseNumber()),
+            formatString(entity.getFeeIds()),
+            formatString(entity.getNotificationSentFlag()),
+            formatString(entity.getContactDetails()),
+            formatString(entity.getServiceType()),
+            formatString(entity.getRefundInstructionType())
+        );
+    }
+
+    private static String formatString(String value) {
+        if (value == null) {
+            return "NULL";
+        }
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    private static String formatLong(Long value) {
+        return value == null ? "NULL" : value.toString();
+    }
+
+    private static String formatInteger(Integer value) {
+        return value == null ? "NULL" : value.toString();
+    }
+
+    private static String formatBigDecimal(java.math.BigDecimal value) {
+        return value == null ? "NULL" : value.toPlainString();
+    }
+
+    private static String formatTimestamp(java.time.LocalDateTime value) {
+        if (value == null) {
+            return "NULL";
+        }
+        return "'" + value.toString().replace("T", " ") + "'";
+    }
+}
@@ -0,0 +1,83 @@
+package uk.gov.hmcts.reform.dbtool.timing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.dbtool.timing.RequestTimings.Phase;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTimingsTest {
+
+    @AfterEach
+    void unbind() {
+        RequestTimings.unbind();
+    }
+
+    @Test
+    void testTime_withoutBoundRequest_justRunsTheWork() {
+        assertNull(RequestTimings.current());
+
+        assertEquals("done", RequestTimings.time(Phase.MAP, () -> "done"));
+        RequestTimings.recordCurrent(Phase.PAYMENTS_DB, 1000);
+    }
+
+    @Test
+    void testTime_recordsAgainstBoundRequestEvenWhenWorkFails() {
+        RequestTimings timings = RequestTimings.bind();
+
+        RequestTimings.time(Phase.MAP, () -> "mapped");
+        assertThrows(IllegalStateException.class, () -> RequestTimings.time(Phase.MAP, () -> {
+            throw new IllegalStateException();
+        }));
+
+        assertEquals(2, timings.count(Phase.MAP));
+        assertEquals(0, timings.count(Phase.DIFF));
+    }
+
+    @Test
+    void testTimeQuery_unbindsTheRequestWhileTheQueryRuns() {
+        RequestTimings timings = RequestTimings.bind();
+
+        RequestTimings.timeQuery(timings, Phase.REFUNDS_DB, () -> {
+            assertNull(RequestTimings.current());
+            // A repository call inside the query is not counted again
+            RequestTimings.recordCurrent(Phase.REFUNDS_DB, 1000);
+            return null;
+        });
+
+        assertSame(timings, RequestTimings.current());
+        assertEquals(1, timings.count(Phase.REFUNDS_DB));
+    }
+
+    @Test
+    void testServerTiming_listsRecordedPhasesInOrderThenTotal() {
+        RequestTimings timings = new RequestTimings(System.nanoTime());
+        timings.record(Phase.SERIALIZE, TimeUnit.MICROSECONDS.toNanos(800));
+        timings.record(Phase.PAYMENTS_DB, TimeUnit.MICROSECONDS.toNanos(12_340));
+        timings.record(Phase.PAYMENTS_DB, TimeUnit.MICROSECONDS.toNanos(1_000));
+
+        String header = timings.serverTiming();
+
+        assertTrue(header.startsWith("payments-db;dur=13.3;desc=\"2 calls\", serialize;dur=0.8, total;dur="),
+                header);
+    }
+
+    @Test
+    void testLogFields_keyValuePairsPerPhase() {
+        RequestTimings timings = new RequestTimings(System.nanoTime());
+        timings.record(Phase.REFUNDS_DB, TimeUnit.MILLISECONDS.toNanos(5));
+
+        String fields = timings.logFields();
+
+        assertTrue(fields.startsWith("total_ms="), fields);
+        assertTrue(fields.endsWith(" refunds_db_ms=5.0 refunds_db_calls=1"), fields);
+    }
+
+    @Test
+    void testDatabasePhase() {
+        assertEquals(Phase.REFUNDS_DB, Phase.database("refunds"));
+        assertEquals(Phase.PAYMENTS_DB, Phase.database("payments"));
+    }
+}
@@ -0,0 +1,106 @@
+package uk.gov.hmcts.reform.dbtool.timing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import uk.gov.hmcts.reform.dbtool.timing.RequestTimings.Phase;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerTimingFilterTest {
+
+    private final ServerTimingFilter filter = new ServerTimingFilter(Duration.ofSeconds(1));
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cases/ccd/1");
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    void testResponseWithoutBody_getsHeaderAfterTheChain() throws Exception {
+        filter.doFilter(request, response, (req, res) -> {
+            RequestTimings.recordCurrent(Phase.PAYMENTS_DB, 2_000_000);
+            ((HttpServletResponse) res).setStatus(404);
+        });
+
+        String header = response.getHeader(ServerTimingFilter.SERVER_TIMING);
+        assertNotNull(header);
+        assertTrue(header.startsWith("payments-db;dur=2.0, total;dur="), header);
+        assertNull(RequestTimings.current());
+    }
+
+    @Test
+    void testJsonBody_headerIncludesSerializationAndPrecedesTheBody() throws Exception {
+        ServerTimingJsonConverter converter = new ServerTimingJsonConverter(new ObjectMapper(), 8192);
+
+        filter.doFilter(request, response, (req, res) -> {
+            ServletServerHttpResponse output = new ServletServerHttpResponse((HttpServletResponse) res);
+            converter.write(Map.of("ccd", "1"), MediaType.APPLICATION_JSON, output);
+            // The header is set as the body opens; a committed response keeps it
+            res.flushBuffer();
+            assertTrue(res.isCommitted());
+        });
+
+        assertTrue(response.getHeader(ServerTimingFilter.SERVER_TIMING).startsWith("serialize;dur="));
+        assertEquals("{\"ccd\":\"1\"}", response.getContentAsString());
+    }
+
+    @Test
+    void testJsonBodyOverTheBufferLimit_streamsAndLeavesSerializationToTheLog() throws Exception {
+        ServerTimingJsonConverter converter = new ServerTimingJsonConverter(new ObjectMapper(), 16);
+        AtomicReference<RequestTimings> timings = new AtomicReference<>();
+        String ccd = "1".repeat(100);
+
+        filter.doFilter(request, response, (req, res) -> {
+            timings.set(RequestTimings.current());
+            converter.write(Map.of("ccd", ccd), MediaType.APPLICATION_JSON, new ServletServerHttpResponse(
+                    (HttpServletResponse) res));
+        });
+
+        assertTrue(response.getHeader(ServerTimingFilter.SERVER_TIMING).startsWith("total;dur="),
+                "The header went out before serialization finished");
+        assertEquals("{\"ccd\":\"" + ccd + "\"}", response.getContentAsString());
+        assertTrue(timings.get().logFields().contains(" serialize_ms="), timings.get().logFields());
+    }
+
+    @Test
+    void testAsyncRequest_keepsTimingUntilTheAsyncDispatchWritesTheResponse() throws Exception {
+        request.setAsyncSupported(true);
+        filter.doFilter(request, response, (req, res) -> {
+            RequestTimings.recordCurrent(Phase.PAYMENTS_DB, 2_000_000);
+            req.startAsync();
+        });
+
+        assertNull(response.getHeader(ServerTimingFilter.SERVER_TIMING), "Not finished on the initial dispatch");
+        assertNull(RequestTimings.current());
+
+        request.setDispatcherType(DispatcherType.ASYNC);
+        request.setAsyncStarted(false);
+        filter.doFilter(request, response, (req, res) -> {
+            RequestTimings.recordCurrent(Phase.SERIALIZE, 1_000_000);
+            res.getOutputStream();
+        });
+
+        assertTrue(response.getHeader(ServerTimingFilter.SERVER_TIMING)
+                .startsWith("payments-db;dur=2.0, serialize;dur=1.0, total;dur="));
+        assertNull(RequestTimings.current());
+    }
+
+    @Test
+    void testConverterOutsideTimedRequest_writesStraightThrough() throws Exception {
+        ServerTimingJsonConverter converter = new ServerTimingJsonConverter(new ObjectMapper(), 8192);
+
+        converter.write(Map.of("ccd", "1"), MediaType.APPLICATION_JSON, new ServletServerHttpResponse(response));
+
+        assertEquals("{\"ccd\":\"1\"}", response.getContentAsString());
+        assertNull(response.getHeader(ServerTimingFilter.SERVER_TIMING));
+    }
+}